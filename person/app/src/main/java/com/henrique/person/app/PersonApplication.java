@@ -1,14 +1,17 @@
 package com.henrique.person.app;
 
-import com.henrique.person.app.config.SecurityConfig;
 import com.henrique.person.controller.config.ControllerConfig;
-import com.henrique.person.service.config.WebSocketConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Import;
 
-@SpringBootApplication(scanBasePackages = "com.henrique.person")
-@Import({ControllerConfig.class, WebSocketConfig.class, SecurityConfig.class})
+/**
+ * Scans only this module's package; the other modules come in through their own configuration,
+ * {@link ControllerConfig} importing the service configuration (which scans {@code WebSocketConfig})
+ * and that one the repository configuration, so every configuration class is processed once.
+ */
+@SpringBootApplication
+@Import(ControllerConfig.class)
 public class PersonApplication {
     public static void main(String[] args) {
         SpringApplication.run(PersonApplication.class, args);
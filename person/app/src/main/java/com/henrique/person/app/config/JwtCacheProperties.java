@@ -0,0 +1,77 @@
+package com.henrique.person.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Caching on the JWT resource server path: validated tokens and the issuer's JWK set.
+ */
+@ConfigurationProperties("person.security.jwt")
+public class JwtCacheProperties {
+
+    /**
+     * Maximum number of validated tokens kept.
+     */
+    private long maxTokens = 10_000;
+
+    /**
+     * Longest time a validated token is served from the cache, even if it expires later.
+     */
+    private Duration maxTokenTtl = Duration.ofMinutes(5);
+
+    /**
+     * How long the fetched JWK set is used before it is fetched again.
+     */
+    private Duration jwkSetTtl = Duration.ofMinutes(15);
+
+    /**
+     * How long before the JWK set expires it is refreshed in the background.
+     */
+    private Duration jwkSetRefreshAhead = Duration.ofMinutes(1);
+
+    /**
+     * How long a request waits for a JWK set refresh another request started.
+     */
+    private Duration jwkSetRefreshTimeout = Duration.ofSeconds(5);
+
+    public long getMaxTokens() {
+        return maxTokens;
+    }
+
+    public void setMaxTokens(long maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public Duration getMaxTokenTtl() {
+        return maxTokenTtl;
+    }
+
+    public void setMaxTokenTtl(Duration maxTokenTtl) {
+        this.maxTokenTtl = maxTokenTtl;
+    }
+
+    public Duration getJwkSetTtl() {
+        return jwkSetTtl;
+    }
+
+    public void setJwkSetTtl(Duration jwkSetTtl) {
+        this.jwkSetTtl = jwkSetTtl;
+    }
+
+    public Duration getJwkSetRefreshAhead() {
+        return jwkSetRefreshAhead;
+    }
+
+    public void setJwkSetRefreshAhead(Duration jwkSetRefreshAhead) {
+        this.jwkSetRefreshAhead = jwkSetRefreshAhead;
+    }
+
+    public Duration getJwkSetRefreshTimeout() {
+        return jwkSetRefreshTimeout;
+    }
+
+    public void setJwkSetRefreshTimeout(Duration jwkSetRefreshTimeout) {
+        this.jwkSetRefreshTimeout = jwkSetRefreshTimeout;
+    }
+}
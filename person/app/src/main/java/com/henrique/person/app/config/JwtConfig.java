@@ -0,0 +1,91 @@
+package com.henrique.person.app.config;
+
+import com.henrique.person.app.security.CachingJwtDecoder;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the resource server's default {@link JwtDecoder} with a {@link CachingJwtDecoder} over a
+ * Nimbus decoder whose JWK set is cached and refreshed in the background, configured from the usual
+ * {@code spring.security.oauth2.resourceserver.jwt} properties.
+ */
+@Configuration
+@EnableConfigurationProperties(JwtCacheProperties.class)
+public class JwtConfig {
+
+    /**
+     * Closed with the context, which stops the background refresh.
+     */
+    @Bean
+    public JWKSource<SecurityContext> jwkSource(OAuth2ResourceServerProperties resourceServer, JwtCacheProperties properties)
+            throws MalformedURLException {
+        return jwkSource(URI.create(resourceServer.getJwt().getJwkSetUri()).toURL(), properties);
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource, OAuth2ResourceServerProperties resourceServer,
+                                 JwtCacheProperties properties, MeterRegistry meterRegistry) {
+        OAuth2ResourceServerProperties.Jwt jwt = resourceServer.getJwt();
+        NimbusJwtDecoder decoder = nimbusJwtDecoder(jwkSource, jwt.getJwsAlgorithms(), jwt.getIssuerUri(), jwt.getAudiences());
+        return new CachingJwtDecoder(decoder, properties.getMaxTokens(), properties.getMaxTokenTtl(), meterRegistry);
+    }
+
+    /**
+     * JWK set fetched from {@code jwkSetUri}, cached for {@code jwk-set-ttl} and refreshed in the
+     * background {@code jwk-set-refresh-ahead} before it expires, so requests do not wait for the issuer.
+     */
+    public static JWKSource<SecurityContext> jwkSource(URL jwkSetUri, JwtCacheProperties properties) {
+        return JWKSourceBuilder.<SecurityContext>create(jwkSetUri)
+                .cache(properties.getJwkSetTtl().toMillis(), properties.getJwkSetRefreshTimeout().toMillis())
+                .refreshAheadCache(properties.getJwkSetRefreshAhead().toMillis(), true)
+                .build();
+    }
+
+    /**
+     * Signature check against {@code jwkSource} plus the default timestamp, issuer and audience validation.
+     */
+    public static NimbusJwtDecoder nimbusJwtDecoder(JWKSource<SecurityContext> jwkSource, List<String> algorithms, String issuer,
+                                                    List<String> audiences) {
+        Set<JWSAlgorithm> jwsAlgorithms = algorithms.stream().map(JWSAlgorithm::parse).collect(Collectors.toSet());
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(jwsAlgorithms, jwkSource));
+        // claims are checked by the Spring validators below
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        validators.add(issuer == null ? JwtValidators.createDefault() : JwtValidators.createDefaultWithIssuer(issuer));
+        if (audiences != null && !audiences.isEmpty()) {
+            validators.add(new JwtClaimValidator<List<String>>(JwtClaimNames.AUD,
+                    aud -> aud != null && aud.stream().anyMatch(audiences::contains)));
+        }
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(validators));
+        return decoder;
+    }
+}
@@ -51,7 +51,7 @@ public class SecurityConfig {
                 .loginPage("/login")
                 .defaultSuccessUrl("/", true)
             )
-            // Resource server for JWT bearer tokens (e.g., API calls)
+            // Resource server for JWT bearer tokens (e.g., API calls), validated through the caching decoder from JwtConfig
             .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
             // Logout via OIDC end-session if available
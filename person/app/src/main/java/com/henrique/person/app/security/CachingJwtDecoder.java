@@ -0,0 +1,87 @@
+package com.henrique.person.app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * {@link JwtDecoder} that remembers tokens it has already validated, so a token presented again is not
+ * parsed and signature checked on every request.
+ *
+ * <p>Entries are keyed by the SHA-256 of the token, so raw bearer tokens are not kept in memory, and
+ * expire with the token, or after {@code maxTtl} if that comes first. The cache is bounded; tokens
+ * that fail validation are never cached. A token signed with a key that is later removed from the JWK
+ * set stays accepted until its entry expires.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> validated;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maxSize, Duration maxTtl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.validated = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+                        return ttl(jwt, maxTtl, Instant.now()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validated, "jwt.validated");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        // concurrent requests with the same new token wait for a single validation
+        return validated.get(hash(token), key -> delegate.decode(token));
+    }
+
+    /**
+     * How long a validated token may be served from the cache: until it expires, at most {@code maxTtl}.
+     */
+    static Duration ttl(Jwt jwt, Duration maxTtl, Instant now) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return maxTtl;
+        }
+        Duration remaining = Duration.between(now, expiresAt);
+        if (remaining.isNegative()) {
+            return Duration.ZERO;
+        }
+        return remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -4,10 +4,23 @@ const headers = {
 
 const base = '/v1/person';
 
+// The listing is paged; each full page carries a Link header to the next one
+function nextPage(res) {
+  const link = res.headers.get('Link');
+  const match = link && link.match(/<([^>]+)>;\s*rel="next"/);
+  return match ? match[1] : null;
+}
+
 export async function listPersons() {
-  const res = await fetch(base);
-  if (!res.ok) throw new Error('Failed to fetch persons');
-  return res.json();
+  const persons = [];
+  let url = `${base}?limit=1000`;
+  while (url) {
+    const res = await fetch(url);
+    if (!res.ok) throw new Error('Failed to fetch persons');
+    persons.push(...(await res.json()));
+    url = nextPage(res);
+  }
+  return persons;
 }
 
 export async function getPerson(id) {
@@ -71,6 +71,11 @@ function initWebSocket() {
         console.log('WebSocket connection established', event)
         setConnected(true)
 
+        // Restore server-side topic subscriptions for this new session
+        subscriptions.forEach((callbacks, destination) => {
+            socket.send(JSON.stringify({destination: 'subscribe', body: destination}))
+        })
+
         // Process any queued messages
         if (messageQueue.length > 0) {
             console.log(`Connection restored. Processing ${messageQueue.length} queued messages.`)
@@ -128,9 +133,12 @@ function subscribe(destination, callback) {
     // Automatically append client UUID to user queue destinations
     let actualDestination = destination
 
-    // Add callback to the subscription map
+    // Add callback to the subscription map, subscribing the session on the server for the first one
     if (!subscriptions.has(actualDestination)) {
         subscriptions.set(actualDestination, [])
+        if (socket && socket.readyState === WebSocket.OPEN) {
+            publish('subscribe', actualDestination)
+        }
     }
 
     const callbacks = subscriptions.get(actualDestination)
@@ -146,6 +154,9 @@ function subscribe(destination, callback) {
             }
             if (callbacks.length === 0) {
                 subscriptions.delete(actualDestination)
+                if (socket && socket.readyState === WebSocket.OPEN) {
+                    publish('unsubscribe', actualDestination)
+                }
             }
         }
     }
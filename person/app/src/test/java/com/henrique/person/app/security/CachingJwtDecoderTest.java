@@ -0,0 +1,95 @@
+package com.henrique.person.app.security;
+
+import com.henrique.person.app.config.JwtCacheProperties;
+import com.henrique.person.app.config.JwtConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingJwtDecoderTest {
+
+    private StubJwksIssuer issuer;
+    private AtomicInteger verifications;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        issuer = new StubJwksIssuer();
+        JwtDecoder nimbus = JwtConfig.nimbusJwtDecoder(JwtConfig.jwkSource(issuer.jwkSetUri(), new JwtCacheProperties()),
+                List.of("RS256"), issuer.issuer(), List.of());
+        verifications = new AtomicInteger();
+        JwtDecoder counting = token -> {
+            verifications.incrementAndGet();
+            return nimbus.decode(token);
+        };
+        decoder = new CachingJwtDecoder(counting, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        issuer.close();
+    }
+
+    @Test
+    void sameToken_shouldOnlyBeVerifiedOnce() throws Exception {
+        String token = issuer.token("alice", Instant.now().plusSeconds(300));
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertThat(first.getSubject()).isEqualTo("alice");
+        assertThat(second).isSameAs(first);
+        assertThat(verifications).hasValue(1);
+    }
+
+    @Test
+    void jwkSet_shouldBeFetchedOnceForManyTokens() throws Exception {
+        for (String subject : List.of("alice", "bob", "carol")) {
+            assertThat(decoder.decode(issuer.token(subject, Instant.now().plusSeconds(300))).getSubject()).isEqualTo(subject);
+        }
+        assertThat(verifications).hasValue(3);
+        assertThat(issuer.jwkSetRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidTokens_shouldBeRejectedEveryTime() throws Exception {
+        String forged;
+        try (StubJwksIssuer other = new StubJwksIssuer()) {
+            forged = other.token("mallory", Instant.now().plusSeconds(300));
+        }
+        String expired = issuer.token("alice", Instant.now().minusSeconds(3600));
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> decoder.decode(forged)).isInstanceOf(JwtException.class);
+            assertThatThrownBy(() -> decoder.decode(expired)).isInstanceOf(JwtException.class);
+        }
+        assertThat(verifications).hasValue(4);
+    }
+
+    @Test
+    void ttl_shouldEndWithTheTokenButNotExceedTheMaximum() {
+        Instant now = Instant.now();
+        Duration max = Duration.ofMinutes(5);
+
+        assertThat(CachingJwtDecoder.ttl(jwt(now.plusSeconds(10)), max, now)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(CachingJwtDecoder.ttl(jwt(now.plusSeconds(3600)), max, now)).isEqualTo(max);
+        assertThat(CachingJwtDecoder.ttl(jwt(now.minusSeconds(1)), max, now)).isZero();
+    }
+
+    private static Jwt jwt(Instant expiresAt) {
+        return Jwt.withTokenValue("token").header("alg", "RS256").subject("alice")
+                .issuedAt(expiresAt.minusSeconds(7200)).expiresAt(expiresAt).build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.henrique.person.app.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local issuer for tests: serves the public half of a generated RSA key as a JWK set on a loopback
+ * port and signs tokens with it. Counts how often the JWK set was fetched.
+ */
+public class StubJwksIssuer implements AutoCloseable {
+
+    private final RSAKey key;
+    private final HttpServer server;
+    private final AtomicInteger jwkSetRequests = new AtomicInteger();
+
+    public StubJwksIssuer() throws IOException, JOSEException {
+        this.key = new RSAKeyGenerator(2048).keyID("stub").generate();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        byte[] jwkSet = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        server.createContext("/jwks", exchange -> {
+            jwkSetRequests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwkSet.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(jwkSet);
+            }
+        });
+        server.start();
+    }
+
+    public String issuer() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+    }
+
+    public URL jwkSetUri() throws IOException {
+        return URI.create(issuer() + "/jwks").toURL();
+    }
+
+    public int jwkSetRequests() {
+        return jwkSetRequests.get();
+    }
+
+    public String token(String subject, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer())
+                .subject(subject)
+                .issueTime(new Date())
+                .expirationTime(Date.from(expiresAt))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.henrique.person.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.service.json.PersonJsonModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of {@link PersonDto} lists, as done by the REST listing endpoints, with the
+ * default bean serializer and with the hand-written one of {@link PersonJsonModule}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonDtoJsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private ObjectWriter compiledWriter;
+    private ObjectReader reader;
+    private List<PersonDto> people;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<List<PersonDto>> type = new TypeReference<>() {
+        };
+        writer = objectMapper.writerFor(type);
+        reader = objectMapper.readerFor(type);
+        compiledWriter = new ObjectMapper().registerModule(new PersonJsonModule()).writerFor(type);
+
+        people = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            people.add(new PersonDto((long) i + 1, "Person " + i, 20 + i % 60));
+        }
+        json = writer.writeValueAsBytes(people);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(people);
+    }
+
+    @Benchmark
+    public byte[] serializeCompiled() throws IOException {
+        return compiledWriter.writeValueAsBytes(people);
+    }
+
+    @Benchmark
+    public List<PersonDto> deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,47 @@
+package com.henrique.person.benchmarks;
+
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.model.entity.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO/entity mapping done on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonDtoMappingBenchmark {
+
+    private PersonDto dto;
+    private Person person;
+
+    @Setup
+    public void setUp() {
+        dto = new PersonDto(42L, "Ada Lovelace", 36);
+        person = new Person(42L, "Ada Lovelace", 36);
+    }
+
+    @Benchmark
+    public Person toEntity() {
+        return PersonDto.toEntity(dto);
+    }
+
+    @Benchmark
+    public PersonDto fromEntity() {
+        return PersonDto.fromEntity(person);
+    }
+}
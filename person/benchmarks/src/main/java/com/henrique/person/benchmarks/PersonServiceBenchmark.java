@@ -0,0 +1,176 @@
+package com.henrique.person.benchmarks;
+
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.model.entity.Person;
+import com.henrique.person.repository.PersonRepository;
+import com.henrique.person.repository.config.RepositoryConfig;
+import com.henrique.person.service.PersonBatchService;
+import com.henrique.person.service.PersonService;
+import com.henrique.person.service.cache.PersonCache;
+import com.henrique.person.service.changes.PersonChangeLog;
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * {@link PersonService} read paths against an embedded H2 database seeded with {@code rows} people.
+ * The {@code entity*} benchmarks keep the former read path (managed entities copied into DTOs in a
+ * read-write transaction) as the baseline for the {@code projection*} ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonServiceBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private PersonService personService;
+    private PersonCache cache;
+    private PersonRepository repository;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--database.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--database.driver=org.h2.Driver",
+                        "--database.username=sa",
+                        "--database.password=",
+                        "--database.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off");
+        personService = context.getBean(PersonService.class);
+        cache = context.getBean(PersonCache.class);
+        repository = context.getBean(PersonRepository.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        context.getBean(PersonBatchService.class).createAll(IntStream.range(0, rows)
+                .mapToObj(i -> new PersonDto(null, "Person " + i, 20 + i % 60))
+                .iterator());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    @Benchmark
+    public Optional<PersonDto> getByIdCached() {
+        return personService.getById(randomId());
+    }
+
+    @Benchmark
+    public Optional<PersonDto> getByIdUncached() {
+        long id = randomId();
+        cache.evict(id);
+        return personService.getById(id);
+    }
+
+    @Benchmark
+    public List<PersonDto> getPage() {
+        return personService.getPage(randomId(), 100);
+    }
+
+    @Benchmark
+    public long count() {
+        return personService.count();
+    }
+
+    @Benchmark
+    public Optional<PersonDto> entityById() {
+        long id = randomId();
+        return readWrite.execute(status -> repository.findById(id).map(PersonDto::fromEntity));
+    }
+
+    @Benchmark
+    public Optional<PersonDto> projectionById() {
+        long id = randomId();
+        return readOnly.execute(status -> repository.findDtoById(id));
+    }
+
+    @Benchmark
+    public List<PersonDto> entityAll() {
+        return readWrite.execute(status -> {
+            List<PersonDto> dtos = new ArrayList<>(rows);
+            for (Person person : repository.findAll()) {
+                dtos.add(PersonDto.fromEntity(person));
+            }
+            return dtos;
+        });
+    }
+
+    @Benchmark
+    public List<PersonDto> projectionAll() {
+        return readOnly.execute(status -> repository.findAllDtos());
+    }
+
+    @Benchmark
+    public List<PersonDto> projectionPage() {
+        long after = randomId();
+        return readOnly.execute(status -> repository.findDtosAfter(after, Limit.of(100)));
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole blackhole) {
+        personService.streamAll(blackhole::consume);
+    }
+
+    /**
+     * The service and repository layers without the web and WebSocket configuration.
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableConfigurationProperties(ServiceProperties.class)
+    @Import({RepositoryConfig.class, PersonService.class, PersonBatchService.class, PersonCache.class, PersonChangeLog.class})
+    static class BenchmarkConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.henrique.person.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.handler.AbstractServiceHandler;
+import com.henrique.person.service.handler.OutboundQueues;
+import com.henrique.person.service.handler.SessionRegistry;
+import com.henrique.person.service.handler.WebSocketExecutors;
+import com.henrique.person.service.handler.WebSocketHandler;
+import com.henrique.person.service.limit.ConcurrencyLimiter;
+import com.henrique.person.service.limit.RateLimiter;
+import com.henrique.person.service.relay.ClusterRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound decode and dispatch, and outbound encode and enqueue, of {@link WebSocketHandler}. Frames
+ * are written to sessions that discard them, so the socket itself is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketBenchmark {
+
+    private static final String SAVE = "person.save";
+
+    @Param({"100"})
+    public int subscribers;
+
+    private WebSocketExecutors executors;
+    private WebSocketHandler handler;
+    private WebSocketSession session;
+    private TextMessage frame;
+    private TextMessage batchFrame;
+    private PersonDto person;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ServiceProperties properties = new ServiceProperties();
+        // one session sends every frame, far beyond any per-client limit
+        properties.getLimits().setEnabled(false);
+        properties.getLimits().getShedding().setEnabled(false);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        executors = new WebSocketExecutors(properties, new StandardEnvironment());
+        handler = new WebSocketHandler(objectMapper,
+                new OutboundQueues(properties, meterRegistry, executors),
+                new SessionRegistry(properties, meterRegistry),
+                new ClusterRelay(null, properties, executors, meterRegistry),
+                executors, new RateLimiter(properties, meterRegistry), new ConcurrencyLimiter(properties, meterRegistry),
+                properties, meterRegistry);
+        handler.register(SAVE, new AbstractServiceHandler<>(PersonDto.class) {
+            @Override
+            public void process(WebSocketSession session, PersonDto dto) {
+            }
+
+            @Override
+            public List<?> processBatch(WebSocketSession session, List<PersonDto> batch) {
+                return batch;
+            }
+        });
+
+        session = new DiscardingSession("benchmark");
+        handler.afterConnectionEstablished(session);
+        for (int i = 0; i < subscribers; i++) {
+            DiscardingSession subscriber = new DiscardingSession("subscriber-" + i);
+            handler.afterConnectionEstablished(subscriber);
+            handler.subscribe(subscriber, "person.changes");
+        }
+
+        person = new PersonDto(42L, "Ada Lovelace", 36);
+        // the SPA sends the body as a JSON document encoded in a string
+        String body = objectMapper.writeValueAsString(objectMapper.writeValueAsString(person));
+        frame = new TextMessage("{\"destination\":\"" + SAVE + "\",\"body\":" + body + "}");
+
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < 10; i++) {
+            batch.append(i == 0 ? "" : ",")
+                    .append("{\"id\":\"").append(i).append("\",\"destination\":\"").append(SAVE).append("\",\"body\":")
+                    .append(objectMapper.writeValueAsString(person)).append('}');
+        }
+        batchFrame = new TextMessage(batch.append(']').toString());
+    }
+
+    @TearDown
+    public void tearDown() {
+        executors.destroy();
+    }
+
+    @Benchmark
+    public void decode() throws Exception {
+        handler.handleMessage(session, frame);
+    }
+
+    @Benchmark
+    public void decodeBatch() throws Exception {
+        handler.handleMessage(session, batchFrame);
+    }
+
+    @Benchmark
+    public void encode() {
+        handler.sendToSession(session, "person.saved", person);
+    }
+
+    @Benchmark
+    public int broadcast() {
+        return handler.broadcast("person.changes", person);
+    }
+}
@@ -0,0 +1,252 @@
+package com.henrique.person.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.handler.OutboundQueues;
+import com.henrique.person.service.handler.SessionRegistry;
+import com.henrique.person.service.handler.WebSocketExecutors;
+import com.henrique.person.service.handler.WebSocketHandler;
+import com.henrique.person.service.limit.ConcurrencyLimiter;
+import com.henrique.person.service.limit.RateLimiter;
+import com.henrique.person.service.relay.ClusterRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.websocket.ClientEndpointConfig;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.Extension;
+import jakarta.websocket.Session;
+import jakarta.websocket.WebSocketContainer;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketHandlerAdapter;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory held per idle WebSocket session. Each invocation opens {@code sessions} connections to an
+ * embedded Tomcat running {@link WebSocketHandler}, and reports per session the heap retained after a
+ * full collection as {@code retainedBytesPerSession} and the growth of the process's resident set as
+ * {@code residentBytesPerSession}, next to the time it took. The {@code fixed} buffers are the former
+ * 1 MiB text and binary buffers, {@code default} those of {@code person.websocket.buffers}. With
+ * {@code deflate} the clients offer {@code permessage-deflate} and every session gets a zlib deflater
+ * and inflater, whose state is in native memory: it shows in the resident set but not in the heap.
+ *
+ * <p>The clients run in the same JVM with small buffers of their own; they add the same amount to
+ * every configuration, so the difference between the rows is the server's, except with deflate, where
+ * each client holds zlib state like its server session. Opening more sessions needs a file descriptor
+ * limit above twice their number. Each measurement runs in a fresh fork, since memory freed by closed
+ * sessions is reused by the allocator rather than returned, and the resident set is read from
+ * {@code /proc/self/status}, so it is only reported on Linux.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 3, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class WebSocketDensityBenchmark {
+
+    private static final String PATH = "/ws-endpoint";
+
+    private static final int FIXED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int WARM_UP_SESSIONS = 8;
+
+    @Param({"fixed", "default"})
+    public String buffers;
+
+    @Param({"false", "true"})
+    public boolean deflate;
+
+    @Param({"400"})
+    public int sessions;
+
+    private Tomcat tomcat;
+    private WebSocketExecutors executors;
+    private SessionRegistry sessionRegistry;
+    private WebSocketContainer client;
+    private URI uri;
+    private final List<Session> open = new ArrayList<>();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytesPerSession;
+        public long residentBytesPerSession;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ServiceProperties properties = new ServiceProperties();
+        properties.getLimits().setEnabled(false);
+        properties.getLimits().getShedding().setEnabled(false);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        executors = new WebSocketExecutors(properties, new StandardEnvironment());
+        sessionRegistry = new SessionRegistry(properties, meterRegistry);
+        WebSocketHandler handler = new WebSocketHandler(new ObjectMapper(),
+                new OutboundQueues(properties, meterRegistry, executors),
+                sessionRegistry,
+                new ClusterRelay(null, properties, executors, meterRegistry),
+                executors, new RateLimiter(properties, meterRegistry), new ConcurrencyLimiter(properties, meterRegistry),
+                properties, meterRegistry);
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("ws-density").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        Context context = tomcat.addContext("", null);
+        context.addServletContainerInitializer(new WsSci(), null);
+        Tomcat.addServlet(context, "default", new HttpServlet() {
+        });
+        context.addServletMappingDecoded("/", "default");
+        tomcat.start();
+
+        // what ServletServerContainerFactoryBean does in the application, see WebSocketConfig
+        ServerContainer container = (ServerContainer) context.getServletContext().getAttribute(ServerContainer.class.getName());
+        ServiceProperties.Buffers sizes = properties.getWebsocket().getBuffers();
+        boolean fixed = "fixed".equals(buffers);
+        container.setDefaultMaxTextMessageBufferSize(fixed ? FIXED_BUFFER_SIZE : sizes.getTextBufferSize());
+        container.setDefaultMaxBinaryMessageBufferSize(fixed ? FIXED_BUFFER_SIZE : sizes.getBinaryBufferSize());
+        container.addEndpoint(ServerEndpointConfig.Builder.create(Endpoint.class, PATH)
+                .configurator(new ServerEndpointConfig.Configurator() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <T> T getEndpointInstance(Class<T> endpointClass) {
+                        // a Spring adapter per session, as the handshake handler creates in the application
+                        return (T) new Endpoint() {
+                            @Override
+                            public void onOpen(Session session, EndpointConfig config) {
+                                new StandardWebSocketHandlerAdapter(handler, new StandardWebSocketSession(null, null, null, null))
+                                        .onOpen(session, config);
+                            }
+                        };
+                    }
+                })
+                .build());
+
+        client = ContainerProvider.getWebSocketContainer();
+        client.setDefaultMaxTextMessageBufferSize(1024);
+        client.setDefaultMaxBinaryMessageBufferSize(1024);
+        uri = URI.create("ws://localhost:" + tomcat.getConnector().getLocalPort() + PATH);
+
+        // loads and initializes everything a session needs, so the measured invocation only sees the sessions
+        openSessions(WARM_UP_SESSIONS);
+        closeSessions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+        executors.destroy();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeSessions() throws Exception {
+        for (Session session : open) {
+            session.close();
+        }
+        open.clear();
+        awaitServerSessions(0);
+    }
+
+    @Benchmark
+    public int openIdleSessions(Footprint footprint) throws Exception {
+        long heapBefore = usedHeap();
+        long residentBefore = residentSetSize();
+        openSessions(sessions);
+        footprint.retainedBytesPerSession = (usedHeap() - heapBefore) / sessions;
+        footprint.residentBytesPerSession = (residentSetSize() - residentBefore) / sessions;
+        return open.size();
+    }
+
+    private void openSessions(int count) throws Exception {
+        ClientEndpointConfig.Builder config = ClientEndpointConfig.Builder.create();
+        if (deflate) {
+            config.extensions(List.of(new Extension() {
+                @Override
+                public String getName() {
+                    return "permessage-deflate";
+                }
+
+                @Override
+                public List<Parameter> getParameters() {
+                    return List.of();
+                }
+            }));
+        }
+        ClientEndpointConfig clientConfig = config.build();
+        for (int i = 0; i < count; i++) {
+            Session session = client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                }
+            }, clientConfig, uri);
+            if (deflate && session.getNegotiatedExtensions().isEmpty()) {
+                throw new IllegalStateException("permessage-deflate was not negotiated");
+            }
+            open.add(session);
+        }
+        awaitServerSessions(count);
+    }
+
+    private void awaitServerSessions(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (sessionRegistry.size() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Resident set of the process in bytes, 0 where {@code /proc} is not available.
+     */
+    private static long residentSetSize() throws IOException {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return 0;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                // e.g. "VmRSS:	  123456 kB"
+                return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim()) * 1024;
+            }
+        }
+        return 0;
+    }
+}
@@ -1,12 +1,45 @@
 package com.henrique.person.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.henrique.person.model.dto.AgeBucketDto;
+import com.henrique.person.model.dto.AgeStatsDto;
 import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.service.PersonBatchService;
 import com.henrique.person.service.PersonService;
+import com.henrique.person.service.changes.PersonChangeRelay;
+import com.henrique.person.service.changes.PersonChangeSubscriber;
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.io.JsonRecordReader;
+import com.henrique.person.service.io.PersonBinaryReader;
+import com.henrique.person.service.io.PersonBinaryWriter;
+import com.henrique.person.service.io.PersonCsvReader;
+import com.henrique.person.service.io.PersonCsvWriter;
+import com.henrique.person.service.io.PersonFormatException;
+import com.henrique.person.service.stats.AgeStatistics;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller exposing operations over People.
@@ -15,40 +48,275 @@ import java.util.List;
 @RequestMapping("/v1/person")
 public class PersonController {
 
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final String TEXT_CSV_VALUE = "text/csv";
+    static final String PERSON_BINARY_VALUE = "application/x-person-binary";
+
     private final PersonService service;
+    private final PersonBatchService batchService;
+    private final PersonChangeRelay changeRelay;
+    private final AgeStatistics ageStatistics;
+    private final long sseTimeoutMillis;
+    private final ObjectReader personReader;
+    private final ObjectReader idReader;
+    private final ObjectWriter ndjsonWriter;
 
-    public PersonController(PersonService service) {
+    public PersonController(PersonService service, PersonBatchService batchService, PersonChangeRelay changeRelay,
+                            AgeStatistics ageStatistics, ServiceProperties properties, ObjectMapper objectMapper) {
         this.service = service;
+        this.batchService = batchService;
+        this.changeRelay = changeRelay;
+        this.ageStatistics = ageStatistics;
+        this.sseTimeoutMillis = properties.getChanges().getSseTimeout().toMillis();
+        this.personReader = objectMapper.readerFor(PersonDto.class);
+        this.idReader = objectMapper.readerFor(Long.class);
+        this.ndjsonWriter = objectMapper.writerFor(PersonDto.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @PostMapping
     public ResponseEntity<PersonDto> create(@RequestBody PersonDto dto) {
         PersonDto created = service.create(dto);
-        return ResponseEntity.created(URI.create("/v1/person/" + created.getId())).body(created);
+        return ResponseEntity.created(URI.create("/v1/person/" + created.getId())).eTag(eTag(created)).body(created);
     }
 
+    /**
+     * Updates the person. With {@code If-Match} (or a {@code version} in the body) the update only
+     * applies while the person is still at that version, answering 412 otherwise; {@code If-Match: *}
+     * on a missing person is 412 as well.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<PersonDto> update(@PathVariable("id") Long id, @RequestBody PersonDto dto) {
+    public ResponseEntity<PersonDto> update(@PathVariable("id") Long id,
+                                            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                            @RequestBody PersonDto dto) {
         dto.setId(id);
-        PersonDto updated = service.update(dto);
-        return ResponseEntity.ok(updated);
+        if (ifMatch != null) {
+            dto.setVersion(parseVersion(ifMatch));
+        }
+        return service.update(dto)
+                .map(updated -> ResponseEntity.ok().eTag(eTag(updated)).body(updated))
+                .orElseGet(() -> missing(ifMatch));
     }
 
+    /**
+     * The ETag is the person's version; a matching {@code If-None-Match} is answered with 304.
+     */
     @GetMapping("/{id}")
     public ResponseEntity<PersonDto> getById(@PathVariable("id") Long id) {
         return service.getById(id)
-                .map(ResponseEntity::ok)
+                .map(dto -> ResponseEntity.ok().eTag(eTag(dto)).body(dto))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Keyset-paginated listing ordered by id. When the page is full, a {@code Link: rel="next"}
+     * header points to the following page. The ETag is derived from the ids and versions on the page,
+     * so a matching {@code If-None-Match} is answered with 304 without serializing the page.
+     */
     @GetMapping
-    public ResponseEntity<List<PersonDto>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<PersonDto>> getAll(@RequestParam(name = "after", defaultValue = "0") long after,
+                                                  @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<PersonDto> page = service.getPage(after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag(page));
+        if (page.size() == pageSize) {
+            long next = page.get(page.size() - 1).getId();
+            response.header(HttpHeaders.LINK, "</v1/person?after=" + next + "&limit=" + pageSize + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Searches people by name: prefix matches first, then similar names (typo tolerant on PostgreSQL),
+     * optionally within an age range. Paged by offset; when the page is full, a
+     * {@code Link: rel="next"} header points to the following page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<PersonDto>> search(@RequestParam("q") String q,
+                                                  @RequestParam(name = "minAge", required = false) Integer minAge,
+                                                  @RequestParam(name = "maxAge", required = false) Integer maxAge,
+                                                  @RequestParam(name = "offset", defaultValue = "0") int offset,
+                                                  @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int from = Math.max(0, offset);
+        List<PersonDto> page = service.search(q, minAge, maxAge, from, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            UriComponentsBuilder next = UriComponentsBuilder.fromPath("/v1/person/search")
+                    .queryParam("q", q)
+                    .queryParam("offset", from + pageSize)
+                    .queryParam("limit", pageSize);
+            if (minAge != null) {
+                next.queryParam("minAge", minAge);
+            }
+            if (maxAge != null) {
+                next.queryParam("maxAge", maxAge);
+            }
+            response.header(HttpHeaders.LINK, "<" + next.encode().toUriString() + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Streams the whole table as newline-delimited JSON, one person per line, as rows come off the cursor.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter sequence = ndjsonWriter.writeValues(out)) {
+                service.streamAll(dto -> {
+                    try {
+                        sequence.write(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Exports the whole table as CSV ({@code id,name,age,version}), read from a database cursor and
+     * written out in 64 KiB chunks.
+     */
+    @GetMapping(produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCsv() {
+        StreamingResponseBody body = out -> {
+            PersonCsvWriter writer = new PersonCsvWriter(out);
+            service.streamAll(dto -> {
+                try {
+                    writer.write(dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return export(TEXT_CSV_VALUE, "people.csv", body);
+    }
+
+    /**
+     * Exports the whole table in the length-prefixed binary format of {@link PersonBinaryWriter}, the
+     * most compact and cheapest to parse of the export formats.
+     */
+    @GetMapping(produces = PERSON_BINARY_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBinary() {
+        StreamingResponseBody body = out -> {
+            PersonBinaryWriter writer = new PersonBinaryWriter(out);
+            service.streamAll(dto -> {
+                try {
+                    writer.write(dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return export(PERSON_BINARY_VALUE, "people.bin", body);
+    }
+
+    /**
+     * Server-sent events with the person change stream. Each event carries a batch of changes and has
+     * the offset of its last change as id, so a reconnecting {@code EventSource} resumes where it left
+     * off through {@code Last-Event-ID}; {@code after} does the same for other clients. Without either,
+     * only new changes are sent. A client too slow to keep up is disconnected and resumes the same way.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+                              @RequestParam(name = "after", required = false) Long after) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        PersonChangeSubscriber subscriber = changeRelay.queued(changes -> {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(changes.get(changes.size() - 1).getId()))
+                        .name("person.changes")
+                        .data(changes, MediaType.APPLICATION_JSON));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                return false;
+            }
+        }, emitter::complete);
+        emitter.onCompletion(() -> changeRelay.unsubscribe(subscriber));
+        emitter.onTimeout(() -> changeRelay.unsubscribe(subscriber));
+        emitter.onError(e -> changeRelay.unsubscribe(subscriber));
+
+        changeRelay.subscribe(subscriber, lastEventId != null ? lastEventId : after);
+        return emitter;
+    }
+
+    /**
+     * Bulk create. Accepts a JSON array or newline-delimited JSON; the body is read incrementally and
+     * written in chunked transactions. Returns the number of people created.
+     */
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Long> createBatch(InputStream body) throws IOException {
+        try (JsonRecordReader<PersonDto> dtos = JsonRecordReader.open(personReader, body)) {
+            return ResponseEntity.ok(batchService.createAll(dtos));
+        }
+    }
+
+    /**
+     * Bulk create from CSV with a header naming at least the {@code name} and {@code age} columns.
+     * Records are parsed as the body arrives, so the upload is only read as fast as chunks are written.
+     */
+    @PostMapping(path = "/batch", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<Long> importCsv(InputStream body) throws IOException {
+        try (PersonCsvReader people = new PersonCsvReader(body)) {
+            return ResponseEntity.ok(batchService.createAll(people));
+        }
+    }
+
+    /**
+     * Bulk create from the binary format produced by {@link #exportBinary()}.
+     */
+    @PostMapping(path = "/batch", consumes = PERSON_BINARY_VALUE)
+    public ResponseEntity<Long> importBinary(InputStream body) throws IOException {
+        try (PersonBinaryReader people = new PersonBinaryReader(body)) {
+            return ResponseEntity.ok(batchService.createAll(people));
+        }
+    }
+
+    /**
+     * Bulk update of existing people, same body formats as {@link #createBatch}. Returns the number updated.
+     */
+    @PutMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Long> updateBatch(InputStream body) throws IOException {
+        try (JsonRecordReader<PersonDto> dtos = JsonRecordReader.open(personReader, body)) {
+            return ResponseEntity.ok(batchService.updateAll(dtos));
+        }
+    }
+
+    /**
+     * Bulk delete from a JSON array (or newline-delimited list) of ids. Returns the number deleted.
+     */
+    @DeleteMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Long> deleteBatch(InputStream body) throws IOException {
+        try (JsonRecordReader<Long> ids = JsonRecordReader.open(idReader, body)) {
+            return ResponseEntity.ok(batchService.deleteAll(ids));
+        }
     }
 
+    /**
+     * Deletes the person; with {@code If-Match} only while it is still at that version, answering 412
+     * otherwise and 404 when it does not exist, or 412 for {@code If-Match: *}. Without it deleting a
+     * missing person is a no-op.
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable("id") Long id) {
-        service.delete(id);
+    public ResponseEntity<Void> delete(@PathVariable("id") Long id,
+                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            service.delete(id);
+            return ResponseEntity.noContent().build();
+        }
+        if (!service.delete(id, parseVersion(ifMatch))) {
+            return missing(ifMatch);
+        }
         return ResponseEntity.noContent().build();
     }
 
@@ -56,4 +324,126 @@ public class PersonController {
     public ResponseEntity<Long> count() {
         return ResponseEntity.ok(service.count());
     }
+
+    /**
+     * Age summary: count, mean, youngest, oldest, median, 90th and 99th percentile. Like the other
+     * statistics endpoints it is answered from memory, and is 503 until the aggregate has been loaded.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<AgeStatsDto> stats() {
+        if (!ageStatistics.isReady()) {
+            return statsUnavailable();
+        }
+        return ResponseEntity.ok(ageStatistics.summary());
+    }
+
+    /**
+     * Number of people per age range of {@code width} years.
+     */
+    @GetMapping("/stats/histogram")
+    public ResponseEntity<List<AgeBucketDto>> ageHistogram(@RequestParam(name = "width", defaultValue = "10") int width) {
+        if (!ageStatistics.isReady()) {
+            return statsUnavailable();
+        }
+        return ResponseEntity.ok(ageStatistics.histogram(width));
+    }
+
+    /**
+     * Age percentiles, keyed by the requested percentile ({@code ?p=50&p=95}).
+     */
+    @GetMapping("/stats/percentiles")
+    public ResponseEntity<Map<String, Integer>> agePercentiles(@RequestParam(name = "p", defaultValue = "50,90,99") List<Double> percentiles) {
+        if (!ageStatistics.isReady()) {
+            return statsUnavailable();
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Double percentile : percentiles) {
+            result.put(BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString(), ageStatistics.percentile(percentile));
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Number of people aged {@code minAge} to {@code maxAge}, both inclusive.
+     */
+    @GetMapping("/stats/count")
+    public ResponseEntity<Long> countByAge(@RequestParam(name = "minAge", defaultValue = "0") int minAge,
+                                           @RequestParam(name = "maxAge", defaultValue = "" + Integer.MAX_VALUE) int maxAge) {
+        if (!ageStatistics.isReady()) {
+            return statsUnavailable();
+        }
+        return ResponseEntity.ok(ageStatistics.count(minAge, maxAge));
+    }
+
+    /**
+     * Malformed bulk input, in any of the formats. Chunks written before the bad record stay committed,
+     * and the message says how many records they hold, so the client can resume after them.
+     */
+    @ExceptionHandler(PersonFormatException.class)
+    public ResponseEntity<String> malformedInput(PersonFormatException e) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                .body(e.getMessage() + "\n" + e.getCommitted() + " records before it were written and kept\n");
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> preconditionFailed() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    private static ResponseEntity<StreamingResponseBody> export(String contentType, String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Answer for a write to a person that does not exist. {@code If-Match: *} asks for a current
+     * representation, so without one the precondition fails (RFC 9110, 13.1.1) instead of a 404.
+     */
+    private static <T> ResponseEntity<T> missing(String ifMatch) {
+        if (ifMatch != null && ifMatch.trim().equals("*")) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    private static <T> ResponseEntity<T> statsUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+    }
+
+    private static String eTag(PersonDto dto) {
+        return dto.getVersion() == null ? null : String.valueOf(dto.getVersion());
+    }
+
+    private static String eTag(List<PersonDto> page) {
+        long hash = 1;
+        for (PersonDto dto : page) {
+            hash = 31 * hash + dto.getId();
+            hash = 31 * hash + (dto.getVersion() == null ? 0 : dto.getVersion());
+        }
+        return page.size() + "-" + Long.toHexString(hash);
+    }
+
+    /**
+     * Reads the version out of an {@code If-Match} value; {@code *} matches any version. A value that
+     * is not one of our ETags can never match, so it maps to a version no row has.
+     */
+    static Long parseVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
 }
@@ -1,13 +1,27 @@
 package com.henrique.person.controller.config;
 
 import com.henrique.person.controller.PersonController;
+import com.henrique.person.controller.limit.AdmissionInterceptor;
 import com.henrique.person.service.config.ServiceConfig;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @ComponentScan(basePackageClasses = PersonController.class)
 @Import(ServiceConfig.class)
-public class ControllerConfig {
+public class ControllerConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+
+    public ControllerConfig(AdmissionInterceptor admissionInterceptor) {
+        this.admissionInterceptor = admissionInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/v1/**");
+    }
 }
@@ -0,0 +1,110 @@
+package com.henrique.person.controller.limit;
+
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.limit.ConcurrencyLimiter;
+import com.henrique.person.service.limit.RateLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the REST API, after authentication and handler mapping. Each endpoint, named
+ * by method and path pattern (e.g. {@code POST /v1/person/batch}), has a per-client rate limit: its
+ * own from {@code person.limits.http.endpoints}, or the read or write default. Over it the request is
+ * refused with {@code 429}; when the {@link ConcurrencyLimiter} sheds load, with {@code 503}. Both
+ * carry {@code Retry-After}.
+ *
+ * <p>Streaming responses hold their permit only until the handler returns, and bulk endpoints do not
+ * feed their duration to the limiter; neither says anything about the latency of a single request.
+ */
+@Component
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED_AT = AdmissionInterceptor.class.getName() + ".startedAt";
+    private static final String BULK_SUFFIX = "/batch";
+
+    private final RateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ServiceProperties.Rate read;
+    private final ServiceProperties.Rate write;
+    private final Map<String, ServiceProperties.Rate> endpoints;
+
+    public AdmissionInterceptor(RateLimiter rateLimiter, ConcurrencyLimiter concurrencyLimiter, ServiceProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.read = properties.getLimits().getHttp().getRead();
+        this.write = properties.getLimits().getHttp().getWrite();
+        this.endpoints = properties.getLimits().getHttp().getEndpoints();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (request.getDispatcherType() != DispatcherType.REQUEST || pattern == null) {
+            // async dispatches were admitted with their request; unmapped paths never reach a handler
+            return true;
+        }
+
+        String endpoint = request.getMethod() + " " + pattern;
+        long wait = rateLimiter.tryAcquire(endpoint, rate(request.getMethod(), endpoint), client(request), 1);
+        if (wait > 0) {
+            return refuse(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait) + 1);
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            return refuse(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+        }
+        request.setAttribute(STARTED_AT, pattern.endsWith(BULK_SUFFIX) ? ConcurrencyLimiter.NO_SAMPLE : System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request, false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request, true);
+    }
+
+    private void release(HttpServletRequest request, boolean sample) {
+        Long startedAt = (Long) request.getAttribute(STARTED_AT);
+        if (startedAt == null) {
+            return;
+        }
+        request.removeAttribute(STARTED_AT);
+        boolean sampled = sample && startedAt != ConcurrencyLimiter.NO_SAMPLE;
+        concurrencyLimiter.release(sampled ? System.nanoTime() - startedAt : ConcurrencyLimiter.NO_SAMPLE);
+    }
+
+    private ServiceProperties.Rate rate(String method, String endpoint) {
+        ServiceProperties.Rate rate = endpoints.get(endpoint);
+        if (rate != null) {
+            return rate;
+        }
+        return "GET".equals(method) || "HEAD".equals(method) ? read : write;
+    }
+
+    /**
+     * The authenticated user (the JWT subject for bearer tokens), or the address of an anonymous client.
+     */
+    private static String client(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    private static boolean refuse(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return false;
+    }
+}
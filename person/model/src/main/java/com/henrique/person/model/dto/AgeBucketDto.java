@@ -0,0 +1,44 @@
+package com.henrique.person.model.dto;
+
+/**
+ * Number of people whose age lies in {@code [minAge, maxAge]}.
+ */
+public class AgeBucketDto {
+
+    private int minAge;
+    private int maxAge;
+    private long count;
+
+    public AgeBucketDto() {
+    }
+
+    public AgeBucketDto(int minAge, int maxAge, long count) {
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.count = count;
+    }
+
+    public int getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(int minAge) {
+        this.minAge = minAge;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(int maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,84 @@
+package com.henrique.person.model.dto;
+
+/**
+ * Age summary over all people. Everything but {@code count} is {@code null} when there is nobody.
+ */
+public class AgeStatsDto {
+
+    private long count;
+    private Double mean;
+    private Integer min;
+    private Integer max;
+    private Integer median;
+    private Integer p90;
+    private Integer p99;
+
+    public AgeStatsDto() {
+    }
+
+    public AgeStatsDto(long count, Double mean, Integer min, Integer max, Integer median, Integer p90, Integer p99) {
+        this.count = count;
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+        this.median = median;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public Integer getMin() {
+        return min;
+    }
+
+    public void setMin(Integer min) {
+        this.min = min;
+    }
+
+    public Integer getMax() {
+        return max;
+    }
+
+    public void setMax(Integer max) {
+        this.max = max;
+    }
+
+    public Integer getMedian() {
+        return median;
+    }
+
+    public void setMedian(Integer median) {
+        this.median = median;
+    }
+
+    public Integer getP90() {
+        return p90;
+    }
+
+    public void setP90(Integer p90) {
+        this.p90 = p90;
+    }
+
+    public Integer getP99() {
+        return p99;
+    }
+
+    public void setP99(Integer p99) {
+        this.p99 = p99;
+    }
+}
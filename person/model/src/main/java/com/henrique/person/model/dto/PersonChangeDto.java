@@ -0,0 +1,75 @@
+package com.henrique.person.model.dto;
+
+import com.henrique.person.model.entity.PersonChange;
+
+/**
+ * A change to a person as published to consumers. {@code id} is the offset to resume after;
+ * {@code person} is the state after the change and is {@code null} for deletions.
+ */
+public class PersonChangeDto {
+
+    private Long id;
+    private PersonChange.Type type;
+    private Long personId;
+    private PersonDto person;
+    private long timestamp;
+
+    public PersonChangeDto() {
+    }
+
+    public PersonChangeDto(Long id, PersonChange.Type type, Long personId, PersonDto person, long timestamp) {
+        this.id = id;
+        this.type = type;
+        this.personId = personId;
+        this.person = person;
+        this.timestamp = timestamp;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public PersonChange.Type getType() {
+        return type;
+    }
+
+    public void setType(PersonChange.Type type) {
+        this.type = type;
+    }
+
+    public Long getPersonId() {
+        return personId;
+    }
+
+    public void setPersonId(Long personId) {
+        this.personId = personId;
+    }
+
+    public PersonDto getPerson() {
+        return person;
+    }
+
+    public void setPerson(PersonDto person) {
+        this.person = person;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public static PersonChangeDto fromEntity(PersonChange change) {
+        PersonDto person = change.getType() == PersonChange.Type.DELETED
+                ? null
+                : new PersonDto(change.getPersonId(), change.getName(), change.getAge());
+        return new PersonChangeDto(change.getId(), change.getType(), change.getPersonId(), person,
+                change.getCreatedAt().toEpochMilli());
+    }
+}
@@ -7,14 +7,20 @@ public class PersonDto {
     private Long id;
     private String name;
     private int age;
+    private Long version;
 
     public PersonDto() {
     }
 
     public PersonDto(Long id, String name, int age) {
+        this(id, name, age, null);
+    }
+
+    public PersonDto(Long id, String name, int age, Long version) {
         this.id = id;
         this.name = name;
         this.age = age;
+        this.version = version;
     }
 
     public Long getId() {
@@ -41,11 +47,26 @@ public class PersonDto {
         this.age = age;
     }
 
+    /**
+     * Version of the stored person this state was read from; {@code null} when unknown.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static Person toEntity(PersonDto dto) {
-        return new  Person(dto.getId(), dto.getName(), dto.getAge());
+        Person person = new Person(dto.getId(), dto.getName(), dto.getAge());
+        if (dto.getVersion() != null) {
+            person.setVersion(dto.getVersion());
+        }
+        return person;
     }
 
     public static PersonDto fromEntity(Person person) {
-        return new PersonDto(person.getId(), person.getName(), person.getAge());
+        return new PersonDto(person.getId(), person.getName(), person.getAge(), person.getVersion());
     }
 }
@@ -7,8 +7,11 @@ import java.util.Objects;
 @Table(name = "person")
 public class Person {
 
+    // Sequence ids with a pooled optimizer (one round-trip per 50 ids) so Hibernate can batch inserts;
+    // IDENTITY forces an immediate INSERT per row to learn the generated key.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 255)
@@ -17,6 +20,11 @@ public class Person {
     @Column(name = "age", nullable = false)
     private int age;
 
+    // Bumped on every update; the default lets schema update add the column to existing rows
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private long version;
+
     public Person() {
     }
 
@@ -50,6 +58,14 @@ public class Person {
         this.age = age;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -69,6 +85,7 @@ public class Person {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", age=" + age +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,31 @@
+package com.henrique.person.model;
+
+import com.henrique.person.model.dto.PersonChangeDto;
+import com.henrique.person.model.entity.Person;
+import com.henrique.person.model.entity.PersonChange;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonChangeDtoTest {
+
+    @Test
+    void fromEntity_shouldCarryPersonStateExceptForDeletions() {
+        PersonChange updated = PersonChange.of(PersonChange.Type.UPDATED, new Person(5L, "Alice", 31));
+        updated.setId(100L);
+        updated.setCreatedAt(Instant.ofEpochMilli(1_000));
+
+        PersonChangeDto dto = PersonChangeDto.fromEntity(updated);
+        assertThat(dto.getId()).isEqualTo(100L);
+        assertThat(dto.getType()).isEqualTo(PersonChange.Type.UPDATED);
+        assertThat(dto.getPerson().getName()).isEqualTo("Alice");
+        assertThat(dto.getTimestamp()).isEqualTo(1_000);
+
+        PersonChange deleted = PersonChange.deleted(5L);
+        deleted.setId(101L);
+        assertThat(PersonChangeDto.fromEntity(deleted).getPerson()).isNull();
+        assertThat(PersonChangeDto.fromEntity(deleted).getPersonId()).isEqualTo(5L);
+    }
+}
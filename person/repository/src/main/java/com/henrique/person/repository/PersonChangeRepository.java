@@ -0,0 +1,41 @@
+package com.henrique.person.repository;
+
+import com.henrique.person.model.entity.PersonChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PersonChangeRepository extends CrudRepository<PersonChange, Long> {
+
+    /**
+     * The next changes after offset {@code after}, in offset order.
+     */
+    List<PersonChange> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    /**
+     * The changes with an offset in {@code (after, upTo]}, in offset order.
+     */
+    List<PersonChange> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long after, Long upTo, Limit limit);
+
+    /**
+     * Offset of the latest change, or 0 when there is none.
+     */
+    @Query("select coalesce(max(c.id), 0) from PersonChange c")
+    long findLastId();
+
+    /**
+     * Deletes the changes written before {@code before} and returns how many were removed.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from PersonChange c where c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -1,9 +1,94 @@
 package com.henrique.person.repository;
 
+import com.henrique.person.model.dto.PersonDto;
 import com.henrique.person.model.entity.Person;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PersonRepository extends CrudRepository<Person, Long> {
+public interface PersonRepository extends CrudRepository<Person, Long>, PersonSearchRepository {
+
+    /*
+     * Read paths project straight into PersonDto: no managed entities, no persistence-context entries,
+     * no dirty checking. Each runs in its own read-only transaction, so callers answering from a cache
+     * only start one on a miss.
+     */
+
+    @Query("select new com.henrique.person.model.dto.PersonDto(p.id, p.name, p.age, p.version) from Person p where p.id = :id")
+    @Transactional(readOnly = true)
+    Optional<PersonDto> findDtoById(@Param("id") Long id);
+
+    @Query("select new com.henrique.person.model.dto.PersonDto(p.id, p.name, p.age, p.version) from Person p order by p.id")
+    @Transactional(readOnly = true)
+    List<PersonDto> findAllDtos();
+
+    /**
+     * Keyset page: the next {@code limit} people whose id is greater than {@code after}, ordered by id.
+     */
+    @Query("select new com.henrique.person.model.dto.PersonDto(p.id, p.name, p.age, p.version) from Person p where p.id > :after order by p.id")
+    @Transactional(readOnly = true)
+    List<PersonDto> findDtosAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Streams every person ordered by id straight from a JDBC cursor. Rows are projected into
+     * {@link PersonDto} so nothing is kept in the persistence context; must run inside a transaction.
+     */
+    @Query("select new com.henrique.person.model.dto.PersonDto(p.id, p.name, p.age, p.version) from Person p order by p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<PersonDto> streamAllOrderById();
+
+    /**
+     * The given ids that exist, their rows locked until the transaction ends, so a delete that follows
+     * in the same transaction removes exactly these.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id from Person p where p.id in :ids")
+    List<Long> lockExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes all the given ids with a single statement and returns the number of rows removed.
+     */
+    @Modifying
+    @Query("delete from Person p where p.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Overwrites name and age without loading the row first, bumping its version. Returns the number
+     * of rows updated, 0 when the id does not exist.
+     */
+    @Modifying
+    @Query("update Person p set p.name = :name, p.age = :age, p.version = p.version + 1 where p.id = :id")
+    int updateNameAndAge(@Param("id") Long id, @Param("name") String name, @Param("age") int age);
+
+    /**
+     * Like {@link #updateNameAndAge}, but only while the row is still at {@code version}.
+     */
+    @Modifying
+    @Query("update Person p set p.name = :name, p.age = :age, p.version = p.version + 1 where p.id = :id and p.version = :version")
+    int updateNameAndAgeIfVersion(@Param("id") Long id, @Param("version") long version, @Param("name") String name, @Param("age") int age);
+
+    /**
+     * Deletes the row only while it is still at {@code version}. Returns the number of rows removed.
+     */
+    @Modifying
+    @Query("delete from Person p where p.id = :id and p.version = :version")
+    int deleteIfVersion(@Param("id") Long id, @Param("version") long version);
 }
@@ -0,0 +1,18 @@
+package com.henrique.person.repository;
+
+import com.henrique.person.model.dto.PersonDto;
+
+import java.util.List;
+
+/**
+ * Name search, implemented by {@link PersonSearchRepositoryImpl}.
+ */
+public interface PersonSearchRepository {
+
+    /**
+     * Finds people whose name matches {@code text}, best matches first: names starting with the text,
+     * then (on PostgreSQL) names similar to it, tolerating typos. {@code minAge}/{@code maxAge} are
+     * optional inclusive bounds; {@code offset} and {@code limit} select the page.
+     */
+    List<PersonDto> search(String text, Integer minAge, Integer maxAge, int offset, int limit);
+}
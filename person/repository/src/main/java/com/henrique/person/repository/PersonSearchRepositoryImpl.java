@@ -0,0 +1,143 @@
+package com.henrique.person.repository;
+
+import com.henrique.person.model.dto.PersonDto;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name search backed by a trigram index on PostgreSQL.
+ *
+ * <p>On startup the {@code pg_trgm} extension and a GIN index over {@code lower(name)} are created if
+ * missing, unless schema management is off ({@code spring.jpa.hibernate.ddl-auto=none}); then startup
+ * does not touch the database and the first search only looks the index up. A missing index is looked
+ * up again at most once a minute, so one created while the application runs gets used. The same index
+ * serves both the prefix ({@code LIKE 'text%'}) and the word-similarity ({@code <%}) predicates, so a
+ * search does not scan the table. Other databases, and PostgreSQL when the extension cannot be
+ * installed, fall back to a case-insensitive substring match.
+ */
+public class PersonSearchRepositoryImpl implements PersonSearchRepository, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PersonSearchRepositoryImpl.class);
+
+    private static final String TRIGRAM_SEARCH = """
+            select p.id, p.name, p.age, p.version from person p
+            where (lower(p.name) like :prefix escape '!' or :text <% lower(p.name))
+              and p.age between :minAge and :maxAge
+            order by (lower(p.name) like :prefix escape '!') desc, word_similarity(:text, lower(p.name)) desc, p.id""";
+
+    private static final String SUBSTRING_SEARCH = """
+            select new com.henrique.person.model.dto.PersonDto(p.id, p.name, p.age, p.version) from Person p
+            where lower(p.name) like :contains escape '!'
+              and p.age between :minAge and :maxAge
+            order by case when lower(p.name) like :prefix escape '!' then 0 else 1 end, lower(p.name), p.id""";
+
+    private static final long RECHECK_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final EntityManager entityManager;
+    private final DataSource dataSource;
+    private final boolean manageSchema;
+    // null until known; only a missing index is looked up again, RECHECK_INTERVAL_NANOS after checkedAt
+    private volatile Boolean trigramIndex;
+    private volatile long checkedAt;
+    private volatile boolean postgres = true;
+
+    public PersonSearchRepositoryImpl(EntityManager entityManager, DataSource dataSource,
+                                      @Value("${spring.jpa.hibernate.ddl-auto:update}") String ddlAuto) {
+        this.entityManager = entityManager;
+        this.dataSource = dataSource;
+        this.manageSchema = !"none".equalsIgnoreCase(ddlAuto);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (manageSchema) {
+            trigramIndex = prepareTrigramIndex(true);
+            checkedAt = System.nanoTime();
+        }
+    }
+
+    private boolean hasTrigramIndex() {
+        Boolean known = trigramIndex;
+        if (known == null || !known && postgres && System.nanoTime() - checkedAt > RECHECK_INTERVAL_NANOS) {
+            known = prepareTrigramIndex(false);
+            checkedAt = System.nanoTime();
+            trigramIndex = known;
+        }
+        return known;
+    }
+
+    private boolean prepareTrigramIndex(boolean create) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                // other databases never get the index
+                postgres = false;
+                return false;
+            }
+            try (Statement statement = connection.createStatement()) {
+                if (create) {
+                    statement.execute("create extension if not exists pg_trgm");
+                    statement.execute("create index if not exists person_name_trgm_idx on person using gin (lower(name) gin_trgm_ops)");
+                    return true;
+                }
+                try (ResultSet rs = statement.executeQuery("select 1 from pg_indexes where indexname = 'person_name_trgm_idx'")) {
+                    return rs.next();
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Trigram index on person.name unavailable, name search falls back to substring matching", e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<PersonDto> search(String text, Integer minAge, Integer maxAge, int offset, int limit) {
+        String normalized = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        String escaped = escapeLike(normalized);
+        int min = minAge == null ? 0 : minAge;
+        int max = maxAge == null ? Integer.MAX_VALUE : maxAge;
+
+        if (!normalized.isEmpty() && hasTrigramIndex()) {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = entityManager.createNativeQuery(TRIGRAM_SEARCH)
+                    .setParameter("prefix", escaped + "%")
+                    .setParameter("text", normalized)
+                    .setParameter("minAge", min)
+                    .setParameter("maxAge", max)
+                    .setFirstResult(offset)
+                    .setMaxResults(limit)
+                    .getResultList();
+            List<PersonDto> dtos = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                dtos.add(new PersonDto(((Number) row[0]).longValue(), (String) row[1], ((Number) row[2]).intValue(),
+                        ((Number) row[3]).longValue()));
+            }
+            return dtos;
+        }
+
+        return entityManager.createQuery(SUBSTRING_SEARCH, PersonDto.class)
+                .setParameter("contains", "%" + escaped + "%")
+                .setParameter("prefix", escaped + "%")
+                .setParameter("minAge", min)
+                .setParameter("maxAge", max)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
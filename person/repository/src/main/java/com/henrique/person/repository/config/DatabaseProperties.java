@@ -0,0 +1,449 @@
+package com.henrique.person.repository.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Database access settings, bound from the {@code database.*} keys: connection, pool sizing,
+ * prepared-statement caching, fetch and batch sizes, query timeout, SQL logging and read replicas.
+ */
+@ConfigurationProperties(prefix = "database")
+public class DatabaseProperties {
+
+    /**
+     * JDBC URL of the database.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /**
+     * JDBC driver class name.
+     */
+    private String driver;
+
+    /**
+     * Hibernate dialect; set explicitly so Hibernate does not need a connection to detect it.
+     */
+    private String dialect;
+
+    /**
+     * Statements Hibernate groups into one JDBC batch.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Rows fetched per round trip by queries without their own fetch size hint; 0 keeps the driver default.
+     */
+    private int fetchSize = 0;
+
+    /**
+     * Default timeout of every query; 0 for none.
+     */
+    private Duration queryTimeout = Duration.ZERO;
+
+    /**
+     * Logs every SQL statement to stdout; for development only.
+     */
+    private boolean logSql = false;
+
+    private final Pool pool = new Pool();
+
+    private final StatementCache statementCache = new StatementCache();
+
+    private final Replicas replicas = new Replicas();
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getDriver() {
+        return driver;
+    }
+
+    public void setDriver(String driver) {
+        this.driver = driver;
+    }
+
+    public String getDialect() {
+        return dialect;
+    }
+
+    public void setDialect(String dialect) {
+        this.dialect = dialect;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public Duration getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public void setQueryTimeout(Duration queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    public boolean isLogSql() {
+        return logSql;
+    }
+
+    public void setLogSql(boolean logSql) {
+        this.logSql = logSql;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public Replicas getReplicas() {
+        return replicas;
+    }
+
+    public static class Pool {
+
+        /**
+         * Initial maximum pool size; the adaptive sizer moves it between its bounds at runtime.
+         */
+        private int maximumSize = 20;
+
+        /**
+         * Idle connections kept open.
+         */
+        private int minimumIdle = 5;
+
+        /**
+         * How long a caller waits for a connection before failing.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(5);
+
+        /**
+         * How long a connection above the minimum may sit idle before it is closed.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Connections are replaced after this long; keep it below any database or proxy limit.
+         */
+        private Duration maxLifetime = Duration.ofMinutes(30);
+
+        private final Adaptive adaptive = new Adaptive();
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public int getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(int minimumIdle) {
+            this.minimumIdle = minimumIdle;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getMaxLifetime() {
+            return maxLifetime;
+        }
+
+        public void setMaxLifetime(Duration maxLifetime) {
+            this.maxLifetime = maxLifetime;
+        }
+
+        public Adaptive getAdaptive() {
+            return adaptive;
+        }
+    }
+
+    public static class Adaptive {
+
+        /**
+         * Whether the maximum pool size follows the observed connection wait time.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Lower bound of the maximum pool size.
+         */
+        private int minSize = 5;
+
+        /**
+         * Upper bound of the maximum pool size; keep the sum over all replicas below the database connection limit.
+         */
+        private int maxSize = 40;
+
+        /**
+         * Mean connection wait time above which the pool grows; it shrinks when the wait stays well below.
+         */
+        private Duration targetWait = Duration.ofMillis(10);
+
+        /**
+         * How often the wait time is sampled and the size adjusted.
+         */
+        private Duration interval = Duration.ofSeconds(10);
+
+        /**
+         * Connections added per adjustment when growing; shrinking removes one at a time.
+         */
+        private int step = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTargetWait() {
+            return targetWait;
+        }
+
+        public void setTargetWait(Duration targetWait) {
+            this.targetWait = targetWait;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getStep() {
+            return step;
+        }
+
+        public void setStep(int step) {
+            this.step = step;
+        }
+    }
+
+    public static class StatementCache {
+
+        /**
+         * Server-side prepared statements with a driver-side cache (PostgreSQL). Disable behind poolers that do not support them, such as PgBouncer in transaction mode.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Executions of a statement before it is prepared on the server.
+         */
+        private int prepareThreshold = 5;
+
+        /**
+         * Prepared statements cached per connection.
+         */
+        private int maxQueries = 256;
+
+        /**
+         * Memory the per-connection cache may use.
+         */
+        private int maxSizeMib = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPrepareThreshold() {
+            return prepareThreshold;
+        }
+
+        public void setPrepareThreshold(int prepareThreshold) {
+            this.prepareThreshold = prepareThreshold;
+        }
+
+        public int getMaxQueries() {
+            return maxQueries;
+        }
+
+        public void setMaxQueries(int maxQueries) {
+            this.maxQueries = maxQueries;
+        }
+
+        public int getMaxSizeMib() {
+            return maxSizeMib;
+        }
+
+        public void setMaxSizeMib(int maxSizeMib) {
+            this.maxSizeMib = maxSizeMib;
+        }
+    }
+
+    public static class Replicas {
+
+        /**
+         * JDBC URLs of the read replicas; read-only transactions are balanced over them. Empty sends everything to the primary.
+         */
+        private List<String> urls = new ArrayList<>();
+
+        /**
+         * Replica user; defaults to the primary's.
+         */
+        private String username;
+
+        /**
+         * Replica password; defaults to the primary's.
+         */
+        private String password;
+
+        /**
+         * Maximum pool size of each replica.
+         */
+        private int maximumSize = 20;
+
+        /**
+         * Replication lag above which a replica stops receiving reads until it catches up.
+         */
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        /**
+         * How often the lag of every replica is checked.
+         */
+        private Duration checkInterval = Duration.ofSeconds(5);
+
+        /**
+         * Query returning the replication lag in seconds; blank only checks that the replica answers.
+         */
+        private String lagQuery = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+                + " else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+
+        public Duration getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+
+        public String getLagQuery() {
+            return lagQuery;
+        }
+
+        public void setLagQuery(String lagQuery) {
+            this.lagQuery = lagQuery;
+        }
+    }
+}
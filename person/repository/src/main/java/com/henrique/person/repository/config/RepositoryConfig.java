@@ -1,16 +1,207 @@
 package com.henrique.person.repository.config;
 
 import com.henrique.person.repository.PersonRepository;
+import com.henrique.person.repository.metrics.StatementMetrics;
+import com.henrique.person.repository.pool.AdaptivePoolSizer;
+import com.henrique.person.repository.routing.ReadReplicaRoutingDataSource;
+import com.henrique.person.repository.routing.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
 
 @Configuration
 @PropertySource("classpath:repository.properties")
 @ComponentScan(basePackageClasses = PersonRepository.class)
 @EntityScan(basePackages = "com.henrique.person.model.entity")
-@EnableJpaRepositories(basePackages = "com.henrique.person.repository")
+@EnableConfigurationProperties(DatabaseProperties.class)
 public class RepositoryConfig {
+
+    public static final String POOL_NAME = "person-pool";
+
+    private static final String BOOTSTRAP_MODE = "spring.data.jpa.repositories.bootstrap-mode";
+
+    /*
+     * Declaring the repositories makes Boot's repository auto-configuration back off, and with it its
+     * handling of spring.data.jpa.repositories.bootstrap-mode; the two classes below take it over.
+     */
+
+    @Configuration
+    @ConditionalOnProperty(name = BOOTSTRAP_MODE, havingValue = "default", matchIfMissing = true)
+    @EnableJpaRepositories(basePackages = "com.henrique.person.repository")
+    static class Repositories {
+    }
+
+    /**
+     * Repositories are initialized once the context has been refreshed, and Hibernate is bootstrapped
+     * on the application task executor meanwhile, so the rest of the context starts without waiting
+     * for it.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = BOOTSTRAP_MODE, havingValue = "deferred")
+    @EnableJpaRepositories(basePackages = "com.henrique.person.repository", bootstrapMode = BootstrapMode.DEFERRED)
+    static class DeferredRepositories {
+
+        @Bean
+        public EntityManagerFactoryBuilderCustomizer entityManagerFactoryBootstrapExecutorCustomizer(
+                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) ObjectProvider<AsyncTaskExecutor> taskExecutor) {
+            return builder -> taskExecutor.ifAvailable(builder::setBootstrapExecutor);
+        }
+    }
+
+    /**
+     * Hikari pool of the primary from {@code database.*}. Like Boot's own, it opens connections on
+     * first use, so creating it does not reach the database.
+     */
+    @Bean
+    public HikariDataSource primaryDataSource(DatabaseProperties database) {
+        DatabaseProperties.Pool pool = database.getPool();
+        // With virtual threads the number of concurrent requests is no longer capped by Tomcat's worker
+        // pool, so this is what keeps the database from being flooded
+        return pool(POOL_NAME, database.getUrl(), database.getUsername(), database.getPassword(), pool.getMaximumSize(), database);
+    }
+
+    /**
+     * One pool per {@code database.replicas.urls} entry, named {@code person-pool-replica-<n>}.
+     */
+    @Bean
+    public ReplicaSet replicaSet(DatabaseProperties database, ObjectProvider<MeterRegistry> meterRegistry) {
+        DatabaseProperties.Replicas config = database.getReplicas();
+        String username = config.getUsername() != null ? config.getUsername() : database.getUsername();
+        String password = config.getPassword() != null ? config.getPassword() : database.getPassword();
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < config.getUrls().size(); i++) {
+            String name = POOL_NAME + "-replica-" + i;
+            HikariDataSource replica = pool(name, config.getUrls().get(i), username, password, config.getMaximumSize(), database);
+            replica.setReadOnly(true);
+            // Boot only instruments DataSource beans
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.put(name, replica);
+        }
+        return new ReplicaSet(replicas, config);
+    }
+
+    /**
+     * The data source JPA uses: the primary pool, or with replicas configured a router that sends
+     * read-only transactions to them; see {@link ReadReplicaRoutingDataSource}.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaSet replicaSet) {
+        if (replicaSet.isEmpty()) {
+            return primaryDataSource;
+        }
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primaryDataSource, replicaSet));
+        // known up front, so the proxy never opens a connection just to find them out
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    @Bean
+    public AdaptivePoolSizer adaptivePoolSizer(HikariDataSource primaryDataSource, DatabaseProperties database) {
+        return new AdaptivePoolSizer(primaryDataSource, database);
+    }
+
+    /**
+     * Applies the JDBC settings of {@code database.*} to Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer databaseCustomizer(DatabaseProperties database) {
+        return properties -> {
+            if (database.getDialect() != null) {
+                properties.put(AvailableSettings.DIALECT, database.getDialect());
+            }
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, database.getBatchSize());
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+            properties.put(AvailableSettings.ORDER_UPDATES, true);
+            if (database.getFetchSize() > 0) {
+                properties.put(AvailableSettings.STATEMENT_FETCH_SIZE, database.getFetchSize());
+            }
+            if (!database.getQueryTimeout().isZero()) {
+                properties.put(SpecHints.HINT_SPEC_QUERY_TIMEOUT, database.getQueryTimeout().toMillis());
+            }
+            properties.put(AvailableSettings.SHOW_SQL, database.isLogSql());
+        };
+    }
+
+    /**
+     * Counts statements per kind when a meter registry is present; see {@link StatementMetrics}.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementMetricsCustomizer(ObjectProvider<MeterRegistry> meterRegistry) {
+        return properties -> meterRegistry.ifAvailable(registry ->
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementMetrics(registry)));
+    }
+
+    /**
+     * Exports the configured JDBC settings as {@code person.db.settings}, tagged by setting.
+     */
+    @Bean
+    public MeterBinder databaseSettingsMetrics(DatabaseProperties database) {
+        return registry -> {
+            setting(registry, "batch-size", database, DatabaseProperties::getBatchSize);
+            setting(registry, "fetch-size", database, DatabaseProperties::getFetchSize);
+            setting(registry, "query-timeout-ms", database, d -> d.getQueryTimeout().toMillis());
+            setting(registry, "statement-cache-queries", database, d -> d.getStatementCache().isEnabled() ? d.getStatementCache().getMaxQueries() : 0);
+            setting(registry, "pool-min-size", database, d -> d.getPool().getAdaptive().getMinSize());
+            setting(registry, "pool-max-size", database, d -> d.getPool().getAdaptive().getMaxSize());
+            setting(registry, "replicas", database, d -> d.getReplicas().getUrls().size());
+        };
+    }
+
+    private static HikariDataSource pool(String name, String url, String username, String password, int maximumSize, DatabaseProperties database) {
+        DatabaseProperties.Pool pool = database.getPool();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        if (database.getDriver() != null) {
+            dataSource.setDriverClassName(database.getDriver());
+        }
+        dataSource.setMaximumPoolSize(maximumSize);
+        dataSource.setMinimumIdle(Math.min(pool.getMinimumIdle(), maximumSize));
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        dataSource.setIdleTimeout(pool.getIdleTimeout().toMillis());
+        dataSource.setMaxLifetime(pool.getMaxLifetime().toMillis());
+
+        if (url != null && url.startsWith("jdbc:postgresql:")) {
+            DatabaseProperties.StatementCache cache = database.getStatementCache();
+            dataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
+            dataSource.addDataSourceProperty("prepareThreshold", String.valueOf(cache.isEnabled() ? cache.getPrepareThreshold() : 0));
+            dataSource.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(cache.getMaxQueries()));
+            dataSource.addDataSourceProperty("preparedStatementCacheSizeMiB", String.valueOf(cache.getMaxSizeMib()));
+        }
+        return dataSource;
+    }
+
+    private static void setting(MeterRegistry registry, String name, DatabaseProperties database, ToDoubleFunction<DatabaseProperties> value) {
+        Gauge.builder("person.db.settings", database, value).tag("setting", name).register(registry);
+    }
 }
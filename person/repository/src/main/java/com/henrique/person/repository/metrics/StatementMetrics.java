@@ -0,0 +1,96 @@
+package com.henrique.person.repository.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares, tagged by kind ({@code select}, {@code sequence},
+ * {@code insert}, {@code update}, {@code delete} or {@code other}). A JDBC batch is prepared once, so
+ * it counts as one statement. Only the leading keywords are looked at and the SQL is returned untouched.
+ *
+ * <p>{@code sequence} are the selects fetching the next value of an id sequence, a round trip each;
+ * for the change outbox, which cannot pool its ids, that is one per change.
+ */
+public class StatementMetrics implements StatementInspector {
+
+    private final Counter select;
+    private final Counter sequence;
+    private final Counter insert;
+    private final Counter update;
+    private final Counter delete;
+    private final Counter other;
+
+    public StatementMetrics(MeterRegistry registry) {
+        this.select = counter(registry, "select");
+        this.sequence = counter(registry, "sequence");
+        this.insert = counter(registry, "insert");
+        this.update = counter(registry, "update");
+        this.delete = counter(registry, "delete");
+        this.other = counter(registry, "other");
+    }
+
+    @Override
+    public String inspect(String sql) {
+        switch (kind(sql)) {
+            case "select" -> select.increment();
+            case "sequence" -> sequence.increment();
+            case "insert" -> insert.increment();
+            case "update" -> update.increment();
+            case "delete" -> delete.increment();
+            default -> other.increment();
+        }
+        return sql;
+    }
+
+    /**
+     * The statement kind from its leading keyword, skipping whitespace and {@code /* ... *}{@code /} comments.
+     */
+    static String kind(String sql) {
+        int i = 0;
+        while (i < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return "other";
+                }
+                i = end + 2;
+            } else {
+                break;
+            }
+        }
+        if (startsWithKeyword(sql, i, "select")) {
+            int next = i + "select".length();
+            while (next < sql.length() && Character.isWhitespace(sql.charAt(next))) {
+                next++;
+            }
+            // nextval('seq') on PostgreSQL, next value for seq on H2
+            boolean sequence = sql.regionMatches(true, next, "nextval(", 0, 8) || sql.regionMatches(true, next, "next value for ", 0, 15);
+            return sequence ? "sequence" : "select";
+        }
+        if (startsWithKeyword(sql, i, "with")) {
+            return "select";
+        }
+        for (String keyword : new String[]{"insert", "update", "delete"}) {
+            if (startsWithKeyword(sql, i, keyword)) {
+                return keyword;
+            }
+        }
+        return "other";
+    }
+
+    private static boolean startsWithKeyword(String sql, int offset, String keyword) {
+        int end = offset + keyword.length();
+        return sql.regionMatches(true, offset, keyword, 0, keyword.length())
+                && (end == sql.length() || !Character.isLetterOrDigit(sql.charAt(end)));
+    }
+
+    private static Counter counter(MeterRegistry registry, String kind) {
+        return Counter.builder("person.db.statements")
+                .description("SQL statements prepared by Hibernate")
+                .tag("kind", kind)
+                .register(registry);
+    }
+}
@@ -0,0 +1,122 @@
+package com.henrique.person.repository.pool;
+
+import com.henrique.person.repository.config.DatabaseProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the maximum size of the Hikari pool between {@code database.pool.adaptive.min-size} and
+ * {@code max-size} following the observed connection wait time.
+ *
+ * <p>Every interval the mean wait of the connections acquired since the last sample is read from the
+ * pool's {@code hikaricp.connections.acquire} timer (or, without it, approximated from the threads
+ * waiting right now). Above the target wait the pool grows by {@code step}; when waits stay well below
+ * it and less than half of the pool is in use, it shrinks by one. Hikari opens new connections on
+ * demand and retires the surplus as it goes idle, so a resize never interrupts callers.
+ */
+public class AdaptivePoolSizer implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    private final DataSource dataSource;
+    private final DatabaseProperties.Adaptive config;
+
+    private MeterRegistry registry;
+    private Counter grown;
+    private Counter shrunk;
+    private volatile double lastWaitMillis;
+    private long lastCount;
+    private double lastTotalNanos;
+
+    public AdaptivePoolSizer(DataSource dataSource, DatabaseProperties properties) {
+        this.dataSource = dataSource;
+        this.config = properties.getPool().getAdaptive();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        this.grown = registry.counter("person.db.pool.resizes", "direction", "grow");
+        this.shrunk = registry.counter("person.db.pool.resizes", "direction", "shrink");
+        Gauge.builder("person.db.pool.acquire.wait", this, sizer -> sizer.lastWaitMillis)
+                .description("Mean connection wait over the last sizing interval")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${database.pool.adaptive.interval:10s}")
+    public void adjust() {
+        if (!config.isEnabled() || !(dataSource instanceof HikariDataSource hikari)) {
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            // the pool starts with the first connection request
+            return;
+        }
+
+        long meanWaitNanos = sampleMeanWait(hikari.getPoolName(), pool.getThreadsAwaitingConnection());
+        lastWaitMillis = meanWaitNanos / 1_000_000.0;
+        int current = hikari.getMaximumPoolSize();
+        int next = nextSize(current, meanWaitNanos, pool.getActiveConnections(), config);
+        if (next == current) {
+            return;
+        }
+
+        if (hikari.getMinimumIdle() > next) {
+            hikari.setMinimumIdle(next);
+        }
+        hikari.setMaximumPoolSize(next);
+        if (next > current) {
+            increment(grown);
+        } else {
+            increment(shrunk);
+        }
+        log.info("Connection pool resized from {} to {} (mean wait {} ms)", current, next, String.format("%.1f", lastWaitMillis));
+    }
+
+    /**
+     * The maximum pool size for the next interval.
+     */
+    static int nextSize(int current, long meanWaitNanos, int active, DatabaseProperties.Adaptive config) {
+        long target = config.getTargetWait().toNanos();
+        if (meanWaitNanos > target) {
+            return Math.min(config.getMaxSize(), current + config.getStep());
+        }
+        if (meanWaitNanos < target / 4 && active < current / 2) {
+            return Math.max(config.getMinSize(), current - 1);
+        }
+        return current;
+    }
+
+    private long sampleMeanWait(String poolName, int waiting) {
+        Timer acquire = registry == null ? null : registry.find("hikaricp.connections.acquire").tag("pool", poolName).timer();
+        if (acquire == null) {
+            return waiting > 0 ? config.getTargetWait().toNanos() + 1 : 0;
+        }
+        long count = acquire.count();
+        double totalNanos = acquire.totalTime(TimeUnit.NANOSECONDS);
+        long acquired = count - lastCount;
+        double waited = totalNanos - lastTotalNanos;
+        lastCount = count;
+        lastTotalNanos = totalNanos;
+        return acquired > 0 ? (long) (waited / acquired) : 0;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
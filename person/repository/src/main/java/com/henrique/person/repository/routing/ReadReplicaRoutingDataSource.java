@@ -0,0 +1,62 @@
+package com.henrique.person.repository.routing;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends connections of read-only transactions to a replica from the {@link ReplicaSet} and everything
+ * else to the primary. A replica that refuses the connection is taken out of rotation and the read goes
+ * to the primary instead.
+ *
+ * <p>The read-only flag is only published once the transaction has begun, after the transaction
+ * manager asked for its connection, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which defers the choice
+ * to the first statement.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaSet replicas;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, ReplicaSet replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return source.get(primary);
+        }
+        ReplicaSet.Replica replica = replicas.select();
+        if (replica != null) {
+            try {
+                Connection connection = source.get(replica.getDataSource());
+                replicas.routedToReplica();
+                return connection;
+            } catch (SQLException e) {
+                replicas.markDown(replica, e.getMessage());
+            }
+        }
+        replicas.fellBackToPrimary();
+        return source.get(primary);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
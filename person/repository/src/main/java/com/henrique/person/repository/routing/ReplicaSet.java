@@ -0,0 +1,184 @@
+package com.henrique.person.repository.routing;
+
+import com.henrique.person.repository.config.DatabaseProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas behind {@link ReadReplicaRoutingDataSource}, handed out round-robin.
+ *
+ * <p>Every {@code database.replicas.check-interval} each replica runs the lag query. A replica that
+ * lags more than {@code max-lag}, or cannot be reached, is skipped until a later check finds it caught
+ * up; with none left, reads fall back to the primary. Replicas are assumed available until the first
+ * check says otherwise.
+ */
+public class ReplicaSet implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private Counter replicaReads;
+    private Counter primaryFallbacks;
+
+    public ReplicaSet(Map<String, ? extends DataSource> replicas, DatabaseProperties.Replicas config) {
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.maxLagMillis = config.getMaxLag().toMillis();
+        this.lagQuery = config.getLagQuery();
+    }
+
+    public boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+
+    public List<Replica> getReplicas() {
+        return List.copyOf(replicas);
+    }
+
+    /**
+     * The next available replica, or {@code null} when reads have to go to the primary.
+     */
+    public Replica select() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${database.replicas.check-interval:5s}")
+    public void check() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                long lagMillis = lagQuery == null || lagQuery.isBlank() ? 0 : lagMillis(connection);
+                replica.lagMillis = lagMillis;
+                if (lagMillis > maxLagMillis) {
+                    markDown(replica, "lagging " + lagMillis + " ms behind the primary");
+                } else {
+                    markUp(replica);
+                }
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Takes a replica out of rotation after a failed connection, until the next check finds it healthy.
+     */
+    public void markDown(Replica replica, String reason) {
+        if (replica.available) {
+            replica.available = false;
+            log.warn("Read replica {} taken out of rotation: {}", replica.name, reason);
+        }
+    }
+
+    void routedToReplica() {
+        increment(replicaReads);
+    }
+
+    void fellBackToPrimary() {
+        increment(primaryFallbacks);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.replicaReads = registry.counter("person.db.routing.reads", "target", "replica");
+        this.primaryFallbacks = registry.counter("person.db.routing.reads", "target", "primary");
+        for (Replica replica : replicas) {
+            Gauge.builder("person.db.replica.lag", replica, r -> r.lagMillis)
+                    .description("Replication lag seen by the last check")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("person.db.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("Whether the replica receives reads")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private long lagMillis(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            // no row or a null lag means the node is not replaying anything, so it cannot be behind
+            return rs.next() ? Math.round(rs.getDouble(1) * 1000) : 0;
+        }
+    }
+
+    private static void markUp(Replica replica) {
+        if (!replica.available) {
+            replica.available = true;
+            log.info("Read replica {} back in rotation", replica.name);
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available = true;
+        private volatile long lagMillis;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+
+        public long getLagMillis() {
+            return lagMillis;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.henrique.person.repository;
 
+import com.henrique.person.model.dto.PersonDto;
 import com.henrique.person.model.entity.Person;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -29,4 +33,70 @@ class PersonRepositoryTest {
         assertThat(repository.count()).isEqualTo(countBefore - 1);
         assertThat(repository.findById(saved.getId())).isEmpty();
     }
+
+    @Test
+    void keysetPage_and_stream_shouldBeOrderedById() {
+        Person first = repository.save(new Person(null, "First", 10));
+        Person second = repository.save(new Person(null, "Second", 20));
+        Person third = repository.save(new Person(null, "Third", 30));
+
+        List<PersonDto> page = repository.findDtosAfter(first.getId(), Limit.of(1));
+        assertThat(page).extracting(PersonDto::getId).containsExactly(second.getId());
+
+        try (Stream<PersonDto> stream = repository.streamAllOrderById()) {
+            assertThat(stream.map(PersonDto::getId).filter(id -> id >= first.getId()).toList())
+                    .containsExactly(first.getId(), second.getId(), third.getId());
+        }
+    }
+
+    @Test
+    void projections_shouldReturnDtosWithoutManagingEntities() {
+        Person saved = repository.save(new Person(null, "Projected", 44));
+
+        Optional<PersonDto> dto = repository.findDtoById(saved.getId());
+        assertThat(dto).map(PersonDto::getName).contains("Projected");
+        assertThat(dto).map(PersonDto::getAge).contains(44);
+        assertThat(repository.findDtoById(-1L)).isEmpty();
+        assertThat(repository.findAllDtos()).extracting(PersonDto::getId).contains(saved.getId());
+    }
+
+    @Test
+    void versionedWrites_shouldOnlyApplyAtTheExpectedVersion() {
+        Person saved = repository.save(new Person(null, "Versioned", 50));
+        long version = repository.findDtoById(saved.getId()).orElseThrow().getVersion();
+
+        assertThat(repository.updateNameAndAgeIfVersion(saved.getId(), version + 1, "Stale", 51)).isZero();
+        assertThat(repository.updateNameAndAgeIfVersion(saved.getId(), version, "Fresh", 52)).isEqualTo(1);
+        assertThat(repository.findDtoById(saved.getId())).map(PersonDto::getVersion).contains(version + 1);
+
+        assertThat(repository.updateNameAndAge(saved.getId(), "Blind", 53)).isEqualTo(1);
+        assertThat(repository.deleteIfVersion(saved.getId(), version + 1)).isZero();
+        assertThat(repository.deleteIfVersion(saved.getId(), version + 2)).isEqualTo(1);
+        assertThat(repository.findDtoById(saved.getId())).isEmpty();
+    }
+
+    @Test
+    void lockExistingIds_shouldOnlyReturnIdsThatExist() {
+        Person saved = repository.save(new Person(null, "Locked", 60));
+
+        assertThat(repository.lockExistingIds(List.of(saved.getId(), -1L))).containsExactly(saved.getId());
+        assertThat(repository.deleteByIdIn(List.of(saved.getId()))).isEqualTo(1);
+        assertThat(repository.lockExistingIds(List.of(saved.getId()))).isEmpty();
+    }
+
+    @Test
+    void search_shouldRankPrefixMatchesFirstAndApplyAgeRangeAndPaging() {
+        Person annie = repository.save(new Person(null, "Annie Hall", 30));
+        Person joanna = repository.save(new Person(null, "Joanna Ann", 40));
+        Person anne = repository.save(new Person(null, "ANNE Frank", 15));
+        repository.save(new Person(null, "Bob", 30));
+
+        assertThat(repository.search("ann", null, null, 0, 10)).extracting(PersonDto::getId)
+                .containsExactly(anne.getId(), annie.getId(), joanna.getId());
+        assertThat(repository.search("ann", 20, 40, 0, 10)).extracting(PersonDto::getId)
+                .containsExactly(annie.getId(), joanna.getId());
+        assertThat(repository.search("ann", null, null, 1, 1)).extracting(PersonDto::getId)
+                .containsExactly(annie.getId());
+        assertThat(repository.search("100%", null, null, 0, 10)).isEmpty();
+    }
 }
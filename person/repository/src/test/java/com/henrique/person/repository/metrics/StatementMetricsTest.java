@@ -0,0 +1,38 @@
+package com.henrique.person.repository.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementMetricsTest {
+
+    @Test
+    void kind_shouldComeFromTheLeadingKeyword() {
+        assertThat(StatementMetrics.kind("select p1_0.id from person p1_0")).isEqualTo("select");
+        assertThat(StatementMetrics.kind("  /* load Person */ SELECT 1")).isEqualTo("select");
+        assertThat(StatementMetrics.kind("with t as (select 1) select * from t")).isEqualTo("select");
+        assertThat(StatementMetrics.kind("select nextval('person_change_seq')")).isEqualTo("sequence");
+        assertThat(StatementMetrics.kind("select next value for person_change_seq")).isEqualTo("sequence");
+        assertThat(StatementMetrics.kind("select nextvalue from t")).isEqualTo("select");
+        assertThat(StatementMetrics.kind("insert into person (age,name,version,id) values (?,?,?,?)")).isEqualTo("insert");
+        assertThat(StatementMetrics.kind("UPDATE person set name=?")).isEqualTo("update");
+        assertThat(StatementMetrics.kind("delete from person where id=?")).isEqualTo("delete");
+        assertThat(StatementMetrics.kind("selective nonsense")).isEqualTo("other");
+        assertThat(StatementMetrics.kind("create index if not exists x on person (name)")).isEqualTo("other");
+    }
+
+    @Test
+    void inspect_shouldCountAndReturnTheSqlUnchanged() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StatementMetrics metrics = new StatementMetrics(registry);
+
+        assertThat(metrics.inspect("select 1")).isEqualTo("select 1");
+        metrics.inspect("select 2");
+        metrics.inspect("delete from person");
+
+        assertThat(registry.get("person.db.statements").tag("kind", "select").counter().count()).isEqualTo(2);
+        assertThat(registry.get("person.db.statements").tag("kind", "delete").counter().count()).isEqualTo(1);
+        assertThat(registry.get("person.db.statements").tag("kind", "insert").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,63 @@
+package com.henrique.person.repository.pool;
+
+import com.henrique.person.repository.config.DatabaseProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class AdaptivePoolSizerTest {
+
+    private static final long MS = 1_000_000;
+
+    private static DatabaseProperties.Adaptive config() {
+        DatabaseProperties.Adaptive config = new DatabaseProperties().getPool().getAdaptive();
+        config.setMinSize(5);
+        config.setMaxSize(12);
+        config.setStep(2);
+        config.setTargetWait(Duration.ofMillis(10));
+        return config;
+    }
+
+    @Test
+    void nextSize_shouldGrowOnLongWaitsUpToTheMaximum() {
+        assertThat(AdaptivePoolSizer.nextSize(8, 25 * MS, 8, config())).isEqualTo(10);
+        assertThat(AdaptivePoolSizer.nextSize(11, 25 * MS, 11, config())).isEqualTo(12);
+        assertThat(AdaptivePoolSizer.nextSize(12, 25 * MS, 12, config())).isEqualTo(12);
+    }
+
+    @Test
+    void nextSize_shouldShrinkOnlyWhenWaitsAreLowAndThePoolIsMostlyIdle() {
+        assertThat(AdaptivePoolSizer.nextSize(10, 0, 2, config())).isEqualTo(9);
+        assertThat(AdaptivePoolSizer.nextSize(10, 0, 6, config())).isEqualTo(10);
+        assertThat(AdaptivePoolSizer.nextSize(10, 5 * MS, 2, config())).isEqualTo(10);
+        assertThat(AdaptivePoolSizer.nextSize(5, 0, 0, config())).isEqualTo(5);
+    }
+
+    @Test
+    void adjust_shouldGrowThePoolWhileThreadsWaitWithoutAcquireTimer() {
+        DatabaseProperties properties = new DatabaseProperties();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("test-pool");
+        dataSource.setMaximumPoolSize(10);
+        HikariDataSource spy = Mockito.spy(dataSource);
+        HikariPoolMXBean pool = Mockito.mock(HikariPoolMXBean.class);
+        when(spy.getHikariPoolMXBean()).thenReturn(pool);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(3);
+        when(pool.getActiveConnections()).thenReturn(10);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(spy, properties);
+        sizer.bindTo(registry);
+        sizer.adjust();
+
+        assertThat(spy.getMaximumPoolSize()).isEqualTo(10 + properties.getPool().getAdaptive().getStep());
+        assertThat(registry.get("person.db.pool.resizes").tag("direction", "grow").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,119 @@
+package com.henrique.person.repository.routing;
+
+import com.henrique.person.repository.config.DatabaseProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes between two embedded H2 databases, each holding a row that names it.
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("create table replication (lag_seconds double)");
+        new JdbcTemplate(replica).execute("insert into replication values (0)");
+    }
+
+    @Test
+    void readOnlyTransactions_shouldGoToTheReplicaAndEverythingElseToThePrimary() {
+        Routing routing = new Routing(replicas(Map.of("replica-0", replica)));
+
+        assertThat(routing.read(true)).isEqualTo("replica");
+        assertThat(routing.read(false)).isEqualTo("primary");
+        assertThat(routing.jdbc.queryForObject("select name from node", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplica_shouldBeSkippedUntilItCatchesUp() {
+        ReplicaSet replicas = replicas(Map.of("replica-0", replica));
+        Routing routing = new Routing(replicas);
+
+        new JdbcTemplate(replica).update("update replication set lag_seconds = 60");
+        replicas.check();
+        assertThat(replicas.getReplicas().get(0).getLagMillis()).isEqualTo(60_000);
+        assertThat(routing.read(true)).isEqualTo("primary");
+
+        new JdbcTemplate(replica).update("update replication set lag_seconds = 0.5");
+        replicas.check();
+        assertThat(routing.read(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplica_shouldFallBackToThePrimary() {
+        ReplicaSet replicas = replicas(Map.of("replica-0", new DriverManagerDataSource("jdbc:unreachable:replica")));
+        Routing routing = new Routing(replicas);
+
+        assertThat(routing.read(true)).isEqualTo("primary");
+        assertThat(replicas.getReplicas().get(0).isAvailable()).isFalse();
+    }
+
+    @Test
+    void select_shouldBalanceOverAvailableReplicas() {
+        Map<String, DataSource> nodes = new LinkedHashMap<>();
+        nodes.put("replica-0", replica);
+        nodes.put("replica-1", database("second-replica"));
+        ReplicaSet replicas = replicas(nodes);
+
+        assertThat(replicas.select().getName()).isEqualTo("replica-0");
+        assertThat(replicas.select().getName()).isEqualTo("replica-1");
+        assertThat(replicas.select().getName()).isEqualTo("replica-0");
+
+        // replica-1 has no replication table, so the check takes it out
+        replicas.check();
+        assertThat(replicas.select().getName()).isEqualTo("replica-0");
+        assertThat(replicas.select().getName()).isEqualTo("replica-0");
+    }
+
+    private static ReplicaSet replicas(Map<String, DataSource> nodes) {
+        DatabaseProperties.Replicas config = new DatabaseProperties().getReplicas();
+        config.setMaxLag(Duration.ofSeconds(5));
+        config.setLagQuery("select lag_seconds from replication");
+        return new ReplicaSet(nodes, config);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(32))");
+        jdbc.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private class Routing {
+
+        private final JdbcTemplate jdbc;
+        private final TransactionTemplate transactions;
+
+        Routing(ReplicaSet replicas) {
+            DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replicas));
+            this.jdbc = new JdbcTemplate(dataSource);
+            this.transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        }
+
+        String read(boolean readOnly) {
+            transactions.setReadOnly(readOnly);
+            return transactions.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+    }
+}
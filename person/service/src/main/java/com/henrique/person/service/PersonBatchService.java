@@ -0,0 +1,228 @@
+package com.henrique.person.service;
+
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.model.entity.Person;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonRepository;
+import com.henrique.person.service.cache.PersonCache;
+import com.henrique.person.service.changes.PersonChangeLog;
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.io.PersonFormatException;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bulk create/update/delete of people. Input is consumed from an iterator in chunks of
+ * {@code person.batch.chunk-size} rows, each written in its own transaction, so arbitrarily large
+ * loads run in constant memory and Hibernate can send every chunk as JDBC batches.
+ *
+ * <p>Chunks are committed independently: if the input fails halfway, the chunks already written stay.
+ */
+@Service
+@Observed(name = "person.service")
+public class PersonBatchService {
+
+    private final PersonRepository repository;
+    private final PersonCache cache;
+    private final PersonChangeLog changeLog;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public PersonBatchService(PersonRepository repository, PersonCache cache, PersonChangeLog changeLog,
+                              PlatformTransactionManager transactionManager, ServiceProperties properties) {
+        this.repository = repository;
+        this.cache = cache;
+        this.changeLog = changeLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, properties.getBatch().getChunkSize());
+    }
+
+    /**
+     * Inserts every person from {@code dtos}, ignoring any id they carry. Returns the number of rows inserted.
+     */
+    public long createAll(Iterator<PersonDto> dtos) {
+        return inChunks(dtos, chunk -> {
+            List<Person> entities = new ArrayList<>(chunk.size());
+            for (PersonDto dto : chunk) {
+                entities.add(new Person(null, dto.getName(), dto.getAge()));
+            }
+            repository.saveAll(entities);
+            changeLog.recordAll(PersonChange.Type.CREATED, entities);
+            return entities.size();
+        }, (chunk, created) -> cache.adjustCount(created));
+    }
+
+    /**
+     * Updates name and age of every existing person from {@code dtos}. Each chunk is loaded with a single
+     * {@code IN} query and flushed as batched updates. A person whose row is no longer at the version the
+     * DTO carries is skipped, like one that does not exist. Returns the number of rows updated.
+     */
+    public long updateAll(Iterator<PersonDto> dtos) {
+        return inChunks(dtos, chunk -> {
+            Map<Long, PersonDto> byId = new HashMap<>(chunk.size() * 2);
+            for (PersonDto dto : chunk) {
+                if (dto.getId() != null) {
+                    byId.put(dto.getId(), dto);
+                }
+            }
+            List<Person> updated = new ArrayList<>(byId.size());
+            for (Person person : repository.findAllById(byId.keySet())) {
+                PersonDto dto = byId.get(person.getId());
+                if (isStale(dto, person)) {
+                    continue;
+                }
+                person.setName(dto.getName());
+                person.setAge(dto.getAge());
+                updated.add(person);
+            }
+            changeLog.recordAll(PersonChange.Type.UPDATED, updated);
+            return updated.size();
+        }, (chunk, updated) -> chunk.forEach(dto -> cache.evict(dto.getId())));
+    }
+
+    /**
+     * Creates the people without an id and updates the ones with an id, returning their saved state in
+     * input order ({@code null} for ids that do not exist). Meant for bounded batches whose results are
+     * needed, such as WebSocket batch frames.
+     */
+    public List<PersonDto> saveAll(List<PersonDto> dtos) {
+        return saveAll(dtos, index -> {});
+    }
+
+    /**
+     * Saves the people like {@link #saveAll(List)}, but an update whose row is no longer at the version
+     * the DTO carries is refused: its result is {@code null} and its index in {@code dtos} is passed to
+     * {@code onStale}.
+     */
+    public List<PersonDto> saveAll(List<PersonDto> dtos, IntConsumer onStale) {
+        List<Person> saved = new ArrayList<>(dtos.size());
+        List<PersonDto> results = new ArrayList<>(dtos.size());
+        inChunks(dtos.iterator(), chunk -> {
+            Set<Long> ids = new HashSet<>();
+            for (PersonDto dto : chunk) {
+                if (dto.getId() != null) {
+                    ids.add(dto.getId());
+                }
+            }
+            Map<Long, Person> existing = new HashMap<>(ids.size() * 2);
+            for (Person person : repository.findAllById(ids)) {
+                existing.put(person.getId(), person);
+            }
+
+            List<Person> created = new ArrayList<>();
+            List<Person> updated = new ArrayList<>();
+            for (PersonDto dto : chunk) {
+                Person person;
+                if (dto.getId() == null) {
+                    person = new Person(null, dto.getName(), dto.getAge());
+                    created.add(person);
+                } else {
+                    person = existing.get(dto.getId());
+                    if (person != null && isStale(dto, person)) {
+                        onStale.accept(saved.size());
+                        person = null;
+                    } else if (person != null) {
+                        person.setName(dto.getName());
+                        person.setAge(dto.getAge());
+                        updated.add(person);
+                    }
+                }
+                saved.add(person);
+            }
+            repository.saveAll(created);
+            changeLog.recordAll(PersonChange.Type.CREATED, created);
+            changeLog.recordAll(PersonChange.Type.UPDATED, updated);
+            return created.size();
+        }, (chunk, created) -> {
+            // ids of created people are assigned on persist, so the chunk's entities are mapped once committed
+            for (Person person : saved.subList(results.size(), saved.size())) {
+                PersonDto dto = person == null ? null : PersonDto.fromEntity(person);
+                cache.put(dto);
+                results.add(dto);
+            }
+            cache.adjustCount(created);
+        });
+        return results;
+    }
+
+    /**
+     * Deletes every id from {@code ids} with one statement per chunk. Returns the number of rows removed;
+     * only those are recorded as deleted in the outbox.
+     */
+    public long deleteAll(Iterator<Long> ids) {
+        return deleteAll(ids, existing -> {});
+    }
+
+    /**
+     * Deletes the ids like {@link #deleteAll(Iterator)} and returns those that existed and were removed.
+     * Meant for bounded batches whose results are needed, such as WebSocket batch frames.
+     */
+    public Set<Long> deleteExisting(List<Long> ids) {
+        Set<Long> deleted = new HashSet<>();
+        deleteAll(ids.iterator(), deleted::addAll);
+        return deleted;
+    }
+
+    private long deleteAll(Iterator<Long> ids, Consumer<List<Long>> deleted) {
+        return inChunks(ids, chunk -> {
+            List<Long> existing = repository.lockExistingIds(chunk);
+            if (existing.isEmpty()) {
+                return 0;
+            }
+            int removed = repository.deleteByIdIn(existing);
+            changeLog.recordDeleted(existing);
+            deleted.accept(existing);
+            return removed;
+        }, (chunk, removed) -> {
+            cache.evictAll(chunk);
+            cache.adjustCount(-removed);
+        });
+    }
+
+    private static boolean isStale(PersonDto dto, Person person) {
+        return dto.getVersion() != null && dto.getVersion() != person.getVersion();
+    }
+
+    private <T> long inChunks(Iterator<T> items, ToIntFunction<List<T>> writer, ObjIntConsumer<List<T>> afterCommit) {
+        long total = 0;
+        List<T> chunk = new ArrayList<>(chunkSize);
+        try {
+            while (items.hasNext()) {
+                chunk.add(items.next());
+                if (chunk.size() == chunkSize) {
+                    total += writeChunk(chunk, writer, afterCommit);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        } catch (PersonFormatException e) {
+            // the chunks written so far stay, so the caller needs to know how many rows they hold
+            throw e.withCommitted(total);
+        }
+        if (!chunk.isEmpty()) {
+            total += writeChunk(chunk, writer, afterCommit);
+        }
+        return total;
+    }
+
+    private <T> int writeChunk(List<T> chunk, ToIntFunction<List<T>> writer, ObjIntConsumer<List<T>> afterCommit) {
+        Integer result = transactionTemplate.execute(status -> writer.applyAsInt(chunk));
+        int written = result == null ? 0 : result;
+        // touch the cache only once the chunk is committed, so a concurrent read cannot re-cache old rows
+        afterCommit.accept(chunk, written);
+        return written;
+    }
+}
@@ -2,53 +2,195 @@ package com.henrique.person.service;
 
 import com.henrique.person.model.dto.PersonDto;
 import com.henrique.person.model.entity.Person;
+import com.henrique.person.model.entity.PersonChange;
 import com.henrique.person.repository.PersonRepository;
+import com.henrique.person.service.cache.PersonCache;
+import com.henrique.person.service.changes.PersonChangeLog;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Observed(name = "person.service")
 public class PersonService {
 
     private final PersonRepository repository;
+    private final PersonCache cache;
+    private final PersonChangeLog changeLog;
+    private final TransactionTemplate primaryReads;
 
-    public PersonService(PersonRepository repository) {
+    public PersonService(PersonRepository repository, PersonCache cache, PersonChangeLog changeLog,
+                         PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.cache = cache;
+        this.changeLog = changeLog;
+        // not read-only, so the routing data source sends cache misses to the primary
+        this.primaryReads = new TransactionTemplate(transactionManager);
     }
 
+    @Transactional
     public PersonDto create(PersonDto dto) {
         Person saved = repository.save(PersonDto.toEntity(dto));
-        return PersonDto.fromEntity(saved);
+        changeLog.record(PersonChange.Type.CREATED, saved);
+        PersonDto created = PersonDto.fromEntity(saved);
+        afterCommit(() -> {
+            cache.put(created);
+            cache.adjustCount(1);
+        });
+        return created;
     }
 
-    public PersonDto update(PersonDto dto) {
-        Person saved = repository.save(PersonDto.toEntity(dto));
-        return PersonDto.fromEntity(saved);
+    /**
+     * Updates name and age with an UPDATE statement, without loading the row first. When the DTO
+     * carries a version the update only applies while the row is still at that version, otherwise an
+     * {@link OptimisticLockingFailureException} is thrown, and that one statement is all it costs.
+     * Without a version the new one is not known, so it is read back for the ETag and the cache.
+     * Empty when the person does not exist.
+     */
+    @Transactional
+    public Optional<PersonDto> update(PersonDto dto) {
+        Long id = dto.getId();
+        Long expected = dto.getVersion();
+        PersonDto updated;
+        if (expected == null) {
+            if (repository.updateNameAndAge(id, dto.getName(), dto.getAge()) == 0) {
+                return Optional.empty();
+            }
+            // the version the update produced is needed for the ETag and the cached copy; one SELECT by
+            // primary key is cheaper than a portable way to return it from the UPDATE
+            updated = repository.findDtoById(id).orElseThrow();
+        } else {
+            if (repository.updateNameAndAgeIfVersion(id, expected, dto.getName(), dto.getAge()) == 0) {
+                if (repository.existsById(id)) {
+                    throw new OptimisticLockingFailureException("Person " + id + " is no longer at version " + expected);
+                }
+                return Optional.empty();
+            }
+            updated = new PersonDto(id, dto.getName(), dto.getAge(), expected + 1);
+        }
+        changeLog.record(PersonChange.Type.UPDATED, PersonDto.toEntity(updated));
+        afterCommit(() -> cache.put(updated));
+        return Optional.of(updated);
     }
 
-    public void delete(PersonDto dto) {
-        repository.delete(PersonDto.toEntity(dto));
+    @Transactional
+    public boolean delete(PersonDto dto) {
+        return delete(dto.getId(), dto.getVersion());
     }
 
+    /**
+     * Served from the cache; a miss loads the DTO with a projection query on the primary, as a lagging
+     * replica would leave a stale entry in the cache for its whole lifetime.
+     */
     public Optional<PersonDto> getById(Long id) {
-        return repository.findById(id).map(PersonDto::fromEntity);
+        return cache.get(id, key -> primaryReads.execute(status -> repository.findDtoById(key)));
     }
 
+    @Transactional(readOnly = true)
     public List<PersonDto> getAll() {
-        List<PersonDto> dtos = new ArrayList<>();
-        for (Person person : repository.findAll()) {
-            dtos.add(PersonDto.fromEntity(person));
+        return repository.findAllDtos();
+    }
+
+    /**
+     * Returns up to {@code limit} people with an id greater than {@code after}, ordered by id.
+     * Pass the id of the last element as {@code after} to fetch the next page.
+     */
+    @Transactional(readOnly = true)
+    public List<PersonDto> getPage(long after, int limit) {
+        return repository.findDtosAfter(after, Limit.of(limit));
+    }
+
+    /**
+     * Name search with optional inclusive age bounds; see {@link PersonRepository#search}.
+     */
+    @Transactional(readOnly = true)
+    public List<PersonDto> search(String text, Integer minAge, Integer maxAge, int offset, int limit) {
+        return repository.search(text, minAge, maxAge, offset, limit);
+    }
+
+    /**
+     * Feeds every person, ordered by id, to {@code consumer} while reading from a database cursor,
+     * so memory use does not depend on the size of the table.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<PersonDto> consumer) {
+        try (Stream<PersonDto> stream = repository.streamAllOrderById()) {
+            stream.forEach(consumer);
         }
-        return dtos;
     }
 
-    public void delete(Long id) {
-        repository.deleteById(id);
+    /**
+     * Deletes the person. Returns {@code false}, recording no change, when it did not exist.
+     */
+    @Transactional
+    public boolean delete(Long id) {
+        if (repository.deleteByIdIn(List.of(id)) == 0) {
+            return false;
+        }
+        changeLog.recordDeleted(List.of(id));
+        afterCommit(() -> {
+            cache.evict(id);
+            cache.adjustCount(-1);
+        });
+        return true;
+    }
+
+    /**
+     * Deletes the person only while it is still at {@code version}, otherwise throws an
+     * {@link OptimisticLockingFailureException}; a {@code null} version deletes unconditionally.
+     * Returns {@code false} when the person does not exist.
+     */
+    @Transactional
+    public boolean delete(Long id, Long version) {
+        if (version == null) {
+            return delete(id);
+        }
+        if (repository.deleteIfVersion(id, version) == 0) {
+            if (repository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Person " + id + " is no longer at version " + version);
+            }
+            return false;
+        }
+        changeLog.recordDeleted(List.of(id));
+        afterCommit(() -> {
+            cache.evict(id);
+            cache.adjustCount(-1);
+        });
+        return true;
     }
 
+    /**
+     * Served from the cached count; a miss counts on the primary, for the same reason as {@link #getById}.
+     */
     public long count() {
-        return repository.count();
+        return cache.count(() -> primaryReads.execute(status -> repository.count()));
+    }
+
+    /**
+     * Runs {@code action} once the current transaction commits, or right away outside of one, so the
+     * cache never holds state that could still be rolled back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package com.henrique.person.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache in front of the by-id lookup and the row count.
+ *
+ * <p>People are kept in a bounded Caffeine cache (W-TinyLFU eviction, expire-after-write). The count
+ * is loaded once and then maintained incrementally by the write paths; it is reloaded when its TTL
+ * expires or when a write cannot tell how many rows it affected. Entries are copied in and out so
+ * callers can never mutate the cached state.
+ */
+@Component
+public class PersonCache {
+
+    private static final long UNKNOWN = -1;
+
+    private final Cache<Long, PersonDto> byId;
+    private final long countTtlNanos;
+    private final Counter countHits;
+    private final Counter countMisses;
+
+    private volatile long count = UNKNOWN;
+    private volatile long countLoadedAt;
+    // bumped by every change to the count, so a load that raced with one is not stored
+    private volatile long countGeneration;
+
+    public PersonCache(ServiceProperties properties, MeterRegistry meterRegistry) {
+        ServiceProperties.Cache config = properties.getCache();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        this.countTtlNanos = config.getCountTtl().toNanos();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "person.byId");
+        this.countHits = Counter.builder("cache.gets").tag("cache", "person.count").tag("result", "hit")
+                .description("The number of times count was answered from the cache")
+                .register(meterRegistry);
+        this.countMisses = Counter.builder("cache.gets").tag("cache", "person.count").tag("result", "miss")
+                .description("The number of times count had to be loaded from the database")
+                .register(meterRegistry);
+    }
+
+    public Optional<PersonDto> get(Long id, Function<Long, Optional<PersonDto>> loader) {
+        PersonDto cached = byId.get(id, key -> loader.apply(key).orElse(null));
+        return Optional.ofNullable(copy(cached));
+    }
+
+    public void put(PersonDto dto) {
+        if (dto != null && dto.getId() != null) {
+            byId.put(dto.getId(), copy(dto));
+        }
+    }
+
+    public void evict(Long id) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+    }
+
+    public void evictAll(Iterable<Long> ids) {
+        byId.invalidateAll(ids);
+    }
+
+    public long count(LongSupplier loader) {
+        long current = count;
+        if (current != UNKNOWN && System.nanoTime() - countLoadedAt < countTtlNanos) {
+            countHits.increment();
+            return current;
+        }
+        countMisses.increment();
+        long generation = countGeneration;
+        long loaded = loader.getAsLong();
+        synchronized (this) {
+            // a write landed during the load: the loaded value may or may not include it, so keep nothing
+            if (countGeneration == generation) {
+                count = loaded;
+                countLoadedAt = System.nanoTime();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Applies a known change in the number of rows to the cached count, if one is held.
+     */
+    public synchronized void adjustCount(long delta) {
+        countGeneration++;
+        if (count != UNKNOWN) {
+            count = Math.max(0, count + delta);
+        }
+    }
+
+    /**
+     * Forgets the cached count so the next call reloads it, for writes with an unknown effect on it.
+     */
+    public synchronized void invalidateCount() {
+        countGeneration++;
+        count = UNKNOWN;
+    }
+
+    private static PersonDto copy(PersonDto dto) {
+        return dto == null ? null : new PersonDto(dto.getId(), dto.getName(), dto.getAge(), dto.getVersion());
+    }
+}
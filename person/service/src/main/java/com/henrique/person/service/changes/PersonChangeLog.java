@@ -0,0 +1,44 @@
+package com.henrique.person.service.changes;
+
+import com.henrique.person.model.entity.Person;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonChangeRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes person changes to the outbox. Callers invoke it inside the transaction that makes the
+ * change, so a change is published if and only if it was committed.
+ */
+@Component
+public class PersonChangeLog {
+
+    private final PersonChangeRepository repository;
+
+    public PersonChangeLog(PersonChangeRepository repository) {
+        this.repository = repository;
+    }
+
+    public void record(PersonChange.Type type, Person person) {
+        repository.save(PersonChange.of(type, person));
+    }
+
+    public void recordAll(PersonChange.Type type, Collection<Person> people) {
+        List<PersonChange> changes = new ArrayList<>(people.size());
+        for (Person person : people) {
+            changes.add(PersonChange.of(type, person));
+        }
+        repository.saveAll(changes);
+    }
+
+    public void recordDeleted(Collection<Long> ids) {
+        List<PersonChange> changes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            changes.add(PersonChange.deleted(id));
+        }
+        repository.saveAll(changes);
+    }
+}
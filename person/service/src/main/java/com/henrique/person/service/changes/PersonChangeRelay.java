@@ -0,0 +1,205 @@
+package com.henrique.person.service.changes;
+
+import com.henrique.person.model.dto.PersonChangeDto;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonChangeRepository;
+import com.henrique.person.service.config.ServiceProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the person change outbox to subscribers in batches.
+ *
+ * <p>Every node polls the outbox on its own and serves its own subscribers. A subscriber starts either
+ * live or after a given offset; lagging subscribers are caught up from the outbox one page per poll
+ * until they reach the head, then share the batches read for everyone else.
+ *
+ * <p>Subscribers are called on the polling thread. Those that write to a client wrap themselves in a
+ * {@link #queued} subscriber, which writes on a thread of its own and is dropped when it falls behind.
+ *
+ * <p>Offsets come from a sequence, so a gap means a transaction holding a lower offset has not
+ * committed yet (or rolled back). Publishing stops at a gap until {@code person.changes.gap-timeout}
+ * has passed since the poll that first saw it, so a change is never skipped because it committed late.
+ */
+@Component
+public class PersonChangeRelay implements DisposableBean {
+
+    private static final long LIVE = -1;
+
+    private final PersonChangeRepository repository;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final int subscriberQueue;
+    private final TaskExecutor subscriberExecutor;
+    private final Map<PersonChangeSubscriber, Long> positions = new ConcurrentHashMap<>();
+    // first offset of each gap still waited for, to the System.nanoTime() of the poll that first saw it
+    private final Map<Long, Long> gapsSeenAt = new ConcurrentHashMap<>();
+
+    private volatile long head = LIVE;
+
+    public PersonChangeRelay(PersonChangeRepository repository, ServiceProperties properties, Environment environment) {
+        ServiceProperties.Changes config = properties.getChanges();
+        this.repository = repository;
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.gapTimeout = config.getGapTimeout();
+        this.retention = config.getRetention();
+        this.subscriberQueue = config.getSubscriberQueue();
+        this.subscriberExecutor = createExecutor(config.getSubscriberThreads(), Threading.VIRTUAL.isActive(environment));
+    }
+
+    /**
+     * Wraps a subscriber that writes to a client, so it is called off the polling thread through a
+     * queue of {@code person.changes.subscriber-queue} batches. {@code onDropped} runs once it was
+     * dropped, because it fell behind or failed; subscribe and unsubscribe the returned subscriber.
+     */
+    public QueuedSubscriber queued(PersonChangeSubscriber subscriber, Runnable onDropped) {
+        return new QueuedSubscriber(subscriber, subscriberQueue, subscriberExecutor, onDropped);
+    }
+
+    /**
+     * Starts delivering to the subscriber the changes after offset {@code after}, or only new changes
+     * when {@code after} is {@code null}.
+     */
+    public void subscribe(PersonChangeSubscriber subscriber, Long after) {
+        positions.put(subscriber, after == null ? LIVE : Math.max(0, after));
+    }
+
+    public void unsubscribe(PersonChangeSubscriber subscriber) {
+        positions.remove(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return positions.size();
+    }
+
+    /**
+     * Offset of the last published change, {@code -1} until the first poll.
+     */
+    public long getHead() {
+        return head;
+    }
+
+    /**
+     * Feeds {@code consumer} the already published changes after offset {@code after}, page by page.
+     */
+    public void replay(long after, Consumer<List<PersonChangeDto>> consumer) {
+        long to = head;
+        long position = after;
+        while (position < to) {
+            List<PersonChangeDto> page = page(position, to);
+            if (page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page);
+            position = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${person.changes.poll-interval:200ms}")
+    public void poll() {
+        long from = head;
+        if (from == LIVE) {
+            from = repository.findLastId();
+        }
+
+        List<PersonChangeDto> fresh = readFrom(from);
+        long to = fresh.isEmpty() ? from : fresh.get(fresh.size() - 1).getId();
+
+        for (Map.Entry<PersonChangeSubscriber, Long> entry : positions.entrySet()) {
+            PersonChangeSubscriber subscriber = entry.getKey();
+            long position = entry.getValue() == LIVE ? from : Math.min(entry.getValue(), to);
+
+            List<PersonChangeDto> batch = position >= from ? after(fresh, position) : page(position, to);
+            if (!batch.isEmpty()) {
+                if (!subscriber.deliver(batch)) {
+                    positions.remove(subscriber);
+                    continue;
+                }
+                position = batch.get(batch.size() - 1).getId();
+            }
+            long delivered = position;
+            positions.computeIfPresent(subscriber, (key, current) -> delivered);
+        }
+        head = to;
+    }
+
+    @Scheduled(fixedDelayString = "${person.changes.purge-interval:1h}")
+    public void purge() {
+        repository.deleteCreatedBefore(Instant.now().minus(retention));
+    }
+
+    @Override
+    public void destroy() {
+        if (subscriberExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (subscriberExecutor instanceof SimpleAsyncTaskExecutor simple) {
+            simple.close();
+        }
+    }
+
+    private static TaskExecutor createExecutor(int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("change-subscriber-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("change-subscriber-");
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private List<PersonChangeDto> readFrom(long from) {
+        long now = System.nanoTime();
+        List<PersonChangeDto> fresh = new ArrayList<>();
+        long expected = from + 1;
+        for (PersonChange change : repository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(batchSize))) {
+            if (change.getId() != expected && now - gapsSeenAt.computeIfAbsent(expected, offset -> now) < gapTimeout.toNanos()) {
+                // a lower offset may still be committed
+                break;
+            }
+            fresh.add(PersonChangeDto.fromEntity(change));
+            expected = change.getId() + 1;
+        }
+        long next = expected;
+        // gaps below the next expected offset were filled or timed out
+        gapsSeenAt.keySet().removeIf(offset -> offset < next);
+        return fresh;
+    }
+
+    private List<PersonChangeDto> page(long after, long upTo) {
+        List<PersonChange> changes = repository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(after, upTo, Limit.of(batchSize));
+        List<PersonChangeDto> dtos = new ArrayList<>(changes.size());
+        for (PersonChange change : changes) {
+            dtos.add(PersonChangeDto.fromEntity(change));
+        }
+        return dtos;
+    }
+
+    private static List<PersonChangeDto> after(List<PersonChangeDto> changes, long position) {
+        int start = 0;
+        while (start < changes.size() && changes.get(start).getId() <= position) {
+            start++;
+        }
+        return start == 0 ? changes : changes.subList(start, changes.size());
+    }
+}
@@ -0,0 +1,16 @@
+package com.henrique.person.service.changes;
+
+import com.henrique.person.model.dto.PersonChangeDto;
+
+import java.util.List;
+
+/**
+ * Receives person changes from the {@link PersonChangeRelay}, in offset order and without gaps.
+ */
+public interface PersonChangeSubscriber {
+
+    /**
+     * Delivers the next changes. Returns {@code false} when the subscriber is gone and should be dropped.
+     */
+    boolean deliver(List<PersonChangeDto> changes);
+}
@@ -0,0 +1,86 @@
+package com.henrique.person.service.changes;
+
+import com.henrique.person.model.dto.PersonChangeDto;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands batches to a subscriber that may block, such as a server-sent events connection, through a
+ * bounded queue, so a slow client never holds up the relay poll or the other subscribers. A writer
+ * task, scheduled on the executor whenever the queue goes from empty to non-empty, delivers the
+ * batches in order.
+ *
+ * <p>When the queue is full the subscriber has fallen too far behind: it is dropped, the relay is told
+ * so, and {@code onDropped} runs on the executor once the write in progress, if any, has returned.
+ */
+public class QueuedSubscriber implements PersonChangeSubscriber {
+
+    private final PersonChangeSubscriber delegate;
+    private final Executor executor;
+    private final Runnable onDropped;
+    private final BlockingQueue<List<PersonChangeDto>> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean dropped = new AtomicBoolean();
+    private volatile boolean gone;
+
+    public QueuedSubscriber(PersonChangeSubscriber delegate, int capacity, Executor executor, Runnable onDropped) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.onDropped = onDropped;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    @Override
+    public boolean deliver(List<PersonChangeDto> changes) {
+        if (gone) {
+            return false;
+        }
+        if (!queue.offer(changes)) {
+            gone = true;
+            queue.clear();
+            schedule();
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<PersonChangeDto> batch = queue.poll();
+            if (batch == null) {
+                if (gone && dropped.compareAndSet(false, true)) {
+                    onDropped.run();
+                }
+                draining.set(false);
+                // a batch may have been queued, or the subscriber dropped, after the poll but before the flag was cleared
+                if (!pending() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            if (!gone && !delegate.deliver(batch)) {
+                gone = true;
+                queue.clear();
+            }
+        }
+    }
+
+    private boolean pending() {
+        return !queue.isEmpty() || gone && !dropped.get();
+    }
+}
@@ -0,0 +1,41 @@
+package com.henrique.person.service.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.Extension;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.web.socket.server.standard.ServerEndpointRegistration;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upgrades without ever negotiating {@code permessage-deflate}. The container matches the client's
+ * {@code Sec-WebSocket-Extensions} offer against its own installed extensions, whatever the handshake
+ * handler selected, so the extension can only be turned off through the endpoint's configurator.
+ */
+class NoDeflateUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    @Override
+    protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                          ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+        Endpoint endpoint = (Endpoint) endpointConfig.getConfigurator().getEndpointInstance(endpointConfig.getEndpointClass());
+        ServerEndpointRegistration withoutDeflate = new ServerEndpointRegistration(endpointConfig.getPath(), endpoint) {
+
+            @Override
+            public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested) {
+                List<Extension> negotiated = new ArrayList<>(super.getNegotiatedExtensions(installed, requested));
+                negotiated.removeIf(extension -> PERMESSAGE_DEFLATE.equals(extension.getName()));
+                return negotiated;
+            }
+        };
+        withoutDeflate.setSubprotocols(endpointConfig.getSubprotocols());
+        withoutDeflate.setExtensions(endpointConfig.getExtensions());
+        super.upgradeHttpToWebSocket(request, response, withoutDeflate, pathParams);
+    }
+}
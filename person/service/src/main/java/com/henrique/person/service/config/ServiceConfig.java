@@ -2,12 +2,42 @@ package com.henrique.person.service.config;
 
 import com.henrique.person.repository.config.RepositoryConfig;
 import com.henrique.person.service.PersonService;
+import com.henrique.person.service.handler.WebSocketExecutors;
+import com.henrique.person.service.json.PersonJsonModule;
+import com.henrique.person.service.relay.ClusterRelay;
+import com.henrique.person.service.relay.MessageRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
 @ComponentScan(basePackageClasses = PersonService.class)
 @Import(RepositoryConfig.class)
+@EnableConfigurationProperties(ServiceProperties.class)
+@EnableScheduling
 public class ServiceConfig {
-}
\ No newline at end of file
+
+    /**
+     * Relays WebSocket messages through the {@link MessageRelay} bean a deployment with several replicas
+     * provides, such as a broker-backed one. It is looked up when the relay is created, once every
+     * configuration has been read, and without one the node runs alone and relays nothing.
+     */
+    @Bean
+    public ClusterRelay clusterRelay(ObjectProvider<MessageRelay> messageRelay, ServiceProperties properties,
+                                     WebSocketExecutors executors, MeterRegistry meterRegistry) {
+        return new ClusterRelay(messageRelay.getIfAvailable(), properties, executors, meterRegistry);
+    }
+
+    /**
+     * Picked up by Boot's Jackson auto-configuration; see {@link PersonJsonModule}.
+     */
+    @Bean
+    public PersonJsonModule personJsonModule() {
+        return new PersonJsonModule();
+    }
+}
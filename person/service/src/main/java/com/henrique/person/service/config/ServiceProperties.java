@@ -0,0 +1,770 @@
+package com.henrique.person.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.henrique.person.service.handler.OverflowPolicy;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tunables of the service layer, bound from the {@code person.*} keys of the application configuration.
+ */
+@ConfigurationProperties(prefix = "person")
+public class ServiceProperties {
+
+    private final Batch batch = new Batch();
+    private final Cache cache = new Cache();
+    private final WebSocket websocket = new WebSocket();
+    private final Changes changes = new Changes();
+    private final Stats stats = new Stats();
+    private final Limits limits = new Limits();
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public WebSocket getWebsocket() {
+        return websocket;
+    }
+
+    public Changes getChanges() {
+        return changes;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    public static class Batch {
+
+        /**
+         * Rows written per transaction by the bulk operations.
+         */
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Maximum number of people held by the by-id cache.
+         */
+        private long maxSize = 100_000;
+
+        /**
+         * How long a cached person is served before it is read again from the database.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * How long the incrementally maintained count is trusted before it is reloaded.
+         */
+        private Duration countTtl = Duration.ofMinutes(1);
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getCountTtl() {
+            return countTtl;
+        }
+
+        public void setCountTtl(Duration countTtl) {
+            this.countTtl = countTtl;
+        }
+    }
+
+    public static class WebSocket {
+
+        private final Outbound outbound = new Outbound();
+        private final Relay relay = new Relay();
+        private final Buffers buffers = new Buffers();
+
+        /**
+         * Maximum number of commands accepted in a single batch frame.
+         */
+        private int maxBatchCommands = 500;
+
+        /**
+         * Threads running the concurrent parts of batch frames when running on platform threads.
+         */
+        private int dispatchThreads = 4;
+
+        /**
+         * Open sessions allowed per client UUID; opening one more closes the client's oldest session.
+         */
+        private int maxSessionsPerClient = 4;
+
+        /**
+         * How often open sessions are pinged and checked for idleness.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+        /**
+         * Sessions with no inbound message or pong for this long are closed.
+         */
+        private Duration idleTimeout = Duration.ofSeconds(90);
+
+        /**
+         * Origins allowed to open a session, as exact origins or patterns such as {@code https://*.example.com}.
+         */
+        private List<String> allowedOrigins = List.of("*");
+
+        /**
+         * Accepts the {@code permessage-deflate} extension when the client offers it. Smaller frames
+         * on the wire, at the price of a zlib deflater and inflater per session, held off the heap.
+         */
+        private boolean permessageDeflate = true;
+
+        public Outbound getOutbound() {
+            return outbound;
+        }
+
+        public Relay getRelay() {
+            return relay;
+        }
+
+        public Buffers getBuffers() {
+            return buffers;
+        }
+
+        public int getMaxBatchCommands() {
+            return maxBatchCommands;
+        }
+
+        public void setMaxBatchCommands(int maxBatchCommands) {
+            this.maxBatchCommands = maxBatchCommands;
+        }
+
+        public int getDispatchThreads() {
+            return dispatchThreads;
+        }
+
+        public void setDispatchThreads(int dispatchThreads) {
+            this.dispatchThreads = dispatchThreads;
+        }
+
+        public int getMaxSessionsPerClient() {
+            return maxSessionsPerClient;
+        }
+
+        public void setMaxSessionsPerClient(int maxSessionsPerClient) {
+            this.maxSessionsPerClient = maxSessionsPerClient;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public List<String> getAllowedOrigins() {
+            return allowedOrigins;
+        }
+
+        public void setAllowedOrigins(List<String> allowedOrigins) {
+            this.allowedOrigins = allowedOrigins;
+        }
+
+        public boolean isPermessageDeflate() {
+            return permessageDeflate;
+        }
+
+        public void setPermessageDeflate(boolean permessageDeflate) {
+            this.permessageDeflate = permessageDeflate;
+        }
+    }
+
+    public static class Buffers {
+
+        /**
+         * Characters the container buffers per session for inbound text; longer messages arrive in parts.
+         */
+        private int textBufferSize = 8 * 1024;
+
+        /**
+         * Bytes the container buffers per session for inbound binary messages, which the endpoint refuses anyway.
+         */
+        private int binaryBufferSize = 1024;
+
+        /**
+         * Longest text message accepted, in characters, once its parts are put together; longer ones close the session.
+         */
+        private int maxMessageSize = 1024 * 1024;
+
+        /**
+         * Buffers kept for putting messages back together, shared by all sessions.
+         */
+        private int pooledBuffers = 16;
+
+        public int getTextBufferSize() {
+            return textBufferSize;
+        }
+
+        public void setTextBufferSize(int textBufferSize) {
+            this.textBufferSize = textBufferSize;
+        }
+
+        public int getBinaryBufferSize() {
+            return binaryBufferSize;
+        }
+
+        public void setBinaryBufferSize(int binaryBufferSize) {
+            this.binaryBufferSize = binaryBufferSize;
+        }
+
+        public int getMaxMessageSize() {
+            return maxMessageSize;
+        }
+
+        public void setMaxMessageSize(int maxMessageSize) {
+            this.maxMessageSize = maxMessageSize;
+        }
+
+        public int getPooledBuffers() {
+            return pooledBuffers;
+        }
+
+        public void setPooledBuffers(int pooledBuffers) {
+            this.pooledBuffers = pooledBuffers;
+        }
+    }
+
+    public static class Outbound {
+
+        /**
+         * Maximum number of messages waiting to be written to a single session.
+         */
+        private int maxMessages = 256;
+
+        /**
+         * Maximum number of payload characters waiting to be written to a single session.
+         */
+        private int bufferSizeLimit = 512 * 1024;
+
+        /**
+         * A single write taking longer than this marks the client as too slow and closes the session,
+         * checked while the write is still running.
+         */
+        private Duration sendTimeLimit = Duration.ofSeconds(10);
+
+        /**
+         * What to do when a session's queue is full.
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+        /**
+         * Writer threads shared by all sessions when running on platform threads.
+         */
+        private int writerThreads = 4;
+
+        public int getMaxMessages() {
+            return maxMessages;
+        }
+
+        public void setMaxMessages(int maxMessages) {
+            this.maxMessages = maxMessages;
+        }
+
+        public int getBufferSizeLimit() {
+            return bufferSizeLimit;
+        }
+
+        public void setBufferSizeLimit(int bufferSizeLimit) {
+            this.bufferSizeLimit = bufferSizeLimit;
+        }
+
+        public Duration getSendTimeLimit() {
+            return sendTimeLimit;
+        }
+
+        public void setSendTimeLimit(Duration sendTimeLimit) {
+            this.sendTimeLimit = sendTimeLimit;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getWriterThreads() {
+            return writerThreads;
+        }
+
+        public void setWriterThreads(int writerThreads) {
+            this.writerThreads = writerThreads;
+        }
+    }
+
+    public static class Relay {
+
+        /**
+         * Identifies this node on the message relay; a random id is used when empty.
+         */
+        private String nodeId;
+
+        /**
+         * Maximum number of messages handed to the relay in one publish.
+         */
+        private int maxBatch = 256;
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public int getMaxBatch() {
+            return maxBatch;
+        }
+
+        public void setMaxBatch(int maxBatch) {
+            this.maxBatch = maxBatch;
+        }
+    }
+
+    public static class Changes {
+
+        /**
+         * Maximum number of changes read from the outbox and delivered per poll.
+         */
+        private int batchSize = 500;
+
+        /**
+         * How often the outbox is polled for new changes.
+         */
+        private Duration pollInterval = Duration.ofMillis(200);
+
+        /**
+         * How long publishing waits on a missing offset before assuming its transaction rolled back.
+         */
+        private Duration gapTimeout = Duration.ofSeconds(10);
+
+        /**
+         * How long changes are kept in the outbox, i.e. how far back consumers can resume.
+         */
+        private Duration retention = Duration.ofDays(7);
+
+        /**
+         * How often changes past their retention are deleted.
+         */
+        private Duration purgeInterval = Duration.ofHours(1);
+
+        /**
+         * Lifetime of a server-sent events connection; clients reconnect with {@code Last-Event-ID}.
+         */
+        private Duration sseTimeout = Duration.ofMinutes(30);
+
+        /**
+         * Batches waiting for a remote subscriber, such as a server-sent events client; one that falls
+         * further behind is disconnected and resumes from its last offset.
+         */
+        private int subscriberQueue = 16;
+
+        /**
+         * Threads writing to remote subscribers when running on platform threads.
+         */
+        private int subscriberThreads = 4;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getGapTimeout() {
+            return gapTimeout;
+        }
+
+        public void setGapTimeout(Duration gapTimeout) {
+            this.gapTimeout = gapTimeout;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+
+        public Duration getSseTimeout() {
+            return sseTimeout;
+        }
+
+        public void setSseTimeout(Duration sseTimeout) {
+            this.sseTimeout = sseTimeout;
+        }
+
+        public int getSubscriberQueue() {
+            return subscriberQueue;
+        }
+
+        public void setSubscriberQueue(int subscriberQueue) {
+            this.subscriberQueue = subscriberQueue;
+        }
+
+        public int getSubscriberThreads() {
+            return subscriberThreads;
+        }
+
+        public void setSubscriberThreads(int subscriberThreads) {
+            this.subscriberThreads = subscriberThreads;
+        }
+    }
+
+    public static class Stats {
+
+        /**
+         * Keeps the age of every person in memory, about 16 bytes each, to answer the statistics endpoints.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Highest age with its own histogram slot; older ages are counted in it.
+         */
+        private int maxAge = 150;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(int maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class Limits {
+
+        private final HttpLimits http = new HttpLimits();
+        private final WebSocketLimits websocket = new WebSocketLimits();
+        private final Shedding shedding = new Shedding();
+
+        /**
+         * Applies the per-client rate limits; load shedding is switched separately.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of client buckets kept; the least recently used are dropped first.
+         */
+        private long maxClients = 100_000;
+
+        /**
+         * A client bucket unused for this long is dropped, which is the same as it filling up again.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        public HttpLimits getHttp() {
+            return http;
+        }
+
+        public WebSocketLimits getWebsocket() {
+            return websocket;
+        }
+
+        public Shedding getShedding() {
+            return shedding;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(long maxClients) {
+            this.maxClients = maxClients;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
+    public static class HttpLimits {
+
+        /**
+         * Per-client rate of {@code GET} and {@code HEAD} requests to an endpoint without its own limit.
+         */
+        private Rate read = new Rate(100, 200);
+
+        /**
+         * Per-client rate of the other requests to an endpoint without its own limit.
+         */
+        private Rate write = new Rate(20, 50);
+
+        /**
+         * Per-client rates by endpoint, keyed by method and path pattern, e.g. {@code "[POST /v1/person/batch]"}.
+         */
+        private Map<String, Rate> endpoints = new LinkedHashMap<>();
+
+        public Rate getRead() {
+            return read;
+        }
+
+        public void setRead(Rate read) {
+            this.read = read;
+        }
+
+        public Rate getWrite() {
+            return write;
+        }
+
+        public void setWrite(Rate write) {
+            this.write = write;
+        }
+
+        public Map<String, Rate> getEndpoints() {
+            return endpoints;
+        }
+
+        public void setEndpoints(Map<String, Rate> endpoints) {
+            this.endpoints = endpoints;
+        }
+    }
+
+    public static class WebSocketLimits {
+
+        /**
+         * Per-client rate of opening sessions.
+         */
+        private Rate handshake = new Rate(1, 10);
+
+        /**
+         * Per-client rate of commands to a destination without its own limit; a batch frame costs one per command.
+         */
+        private Rate message = new Rate(100, 500);
+
+        /**
+         * Per-client rates of commands by destination.
+         */
+        private Map<String, Rate> destinations = new LinkedHashMap<>();
+
+        /**
+         * Open sessions allowed on this node; handshakes beyond it are refused.
+         */
+        private int maxConnections = 10_000;
+
+        public Rate getHandshake() {
+            return handshake;
+        }
+
+        public void setHandshake(Rate handshake) {
+            this.handshake = handshake;
+        }
+
+        public Rate getMessage() {
+            return message;
+        }
+
+        public void setMessage(Rate message) {
+            this.message = message;
+        }
+
+        public Map<String, Rate> getDestinations() {
+            return destinations;
+        }
+
+        public void setDestinations(Map<String, Rate> destinations) {
+            this.destinations = destinations;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+    }
+
+    /**
+     * A token bucket: {@code burst} permits, refilled at {@code permits-per-second}. A rate of 0 is unlimited.
+     */
+    public static class Rate {
+
+        private double permitsPerSecond;
+        private int burst;
+
+        public Rate() {
+        }
+
+        public Rate(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    public static class Shedding {
+
+        /**
+         * Rejects requests beyond an adaptive limit of concurrent requests.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Latency above which the concurrency limit is lowered.
+         */
+        private Duration targetLatency = Duration.ofMillis(250);
+
+        /**
+         * Concurrency limit at startup.
+         */
+        private int initialLimit = 50;
+
+        private int minLimit = 5;
+
+        private int maxLimit = 500;
+
+        /**
+         * Factor the limit is multiplied by when latency is above the target.
+         */
+        private double backoff = 0.9;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTargetLatency() {
+            return targetLatency;
+        }
+
+        public void setTargetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getBackoff() {
+            return backoff;
+        }
+
+        public void setBackoff(double backoff) {
+            this.backoff = backoff;
+        }
+    }
+}
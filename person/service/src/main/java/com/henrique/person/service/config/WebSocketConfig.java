@@ -1,6 +1,7 @@
 package com.henrique.person.service.config;
 
 import com.henrique.person.service.handler.WebSocketHandler;
+import com.henrique.person.service.limit.HandshakeAdmission;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.ServerHttpRequest;
@@ -8,11 +9,12 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.HandshakeHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Map;
 
 @Configuration
@@ -20,16 +22,21 @@ import java.util.Map;
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final WebSocketHandler webSocketHandler;
+    private final HandshakeAdmission handshakeAdmission;
+    private final ServiceProperties properties;
 
-    public WebSocketConfig(WebSocketHandler webSocketHandler) {
+    public WebSocketConfig(WebSocketHandler webSocketHandler, HandshakeAdmission handshakeAdmission, ServiceProperties properties) {
         this.webSocketHandler = webSocketHandler;
+        this.handshakeAdmission = handshakeAdmission;
+        this.properties = properties;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(webSocketHandler, "/ws-endpoint")
-                .setAllowedOrigins("*")
-                .addInterceptors(clientUuidHandshakeInterceptor());
+                .setHandshakeHandler(handshakeHandler())
+                .setAllowedOriginPatterns(properties.getWebsocket().getAllowedOrigins().toArray(String[]::new))
+                .addInterceptors(clientUuidHandshakeInterceptor(), handshakeAdmission);
     }
 
     @Bean
@@ -51,7 +58,7 @@ public class WebSocketConfig implements WebSocketConfigurer {
                     }
                 }
 
-                attributes.put("startedAt", new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date()));
+                attributes.put("startedAt", System.currentTimeMillis());
                 return true;
             }
 
@@ -62,11 +69,35 @@ public class WebSocketConfig implements WebSocketConfigurer {
         };
     }
 
+    /**
+     * Tomcat accepts the {@code permessage-deflate} extension (RFC 7692) whenever the client offers it,
+     * window parameters included, so frames are compressed on the wire: it negotiates extensions from
+     * the request header against its own installed ones, whatever Spring selected.
+     *
+     * <p>Tomcat keeps a zlib deflater and inflater for every session that negotiated it, for as long as
+     * the session is open. Their state lives in native memory, so it shows in the process size but not
+     * in the heap; {@code WebSocketDensityBenchmark} measures both. With
+     * {@code person.websocket.permessage-deflate=false} the upgrade goes through
+     * {@link NoDeflateUpgradeStrategy}, which keeps the container from negotiating it.
+     */
+    @Bean
+    public HandshakeHandler handshakeHandler() {
+        return new DefaultHandshakeHandler(properties.getWebsocket().isPermessageDeflate()
+                ? new StandardWebSocketUpgradeStrategy() : new NoDeflateUpgradeStrategy());
+    }
+
+    /**
+     * The container allocates both buffers for every session when it opens, so they are sized for the
+     * small messages of this API rather than for the largest one: longer text messages are handed to
+     * {@link WebSocketHandler} in parts and put together there, up to
+     * {@code person.websocket.buffers.max-message-size}.
+     */
     @Bean
     public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServiceProperties.Buffers buffers = properties.getWebsocket().getBuffers();
         ServletServerContainerFactoryBean servletServerContainerFactoryBean = new ServletServerContainerFactoryBean();
-        servletServerContainerFactoryBean.setMaxTextMessageBufferSize(1024 * 1024); // 1 MB
-        servletServerContainerFactoryBean.setMaxBinaryMessageBufferSize(1024 * 1024); // if using binary
+        servletServerContainerFactoryBean.setMaxTextMessageBufferSize(buffers.getTextBufferSize());
+        servletServerContainerFactoryBean.setMaxBinaryMessageBufferSize(buffers.getBinaryBufferSize());
         return servletServerContainerFactoryBean;
     }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package com.henrique.person.service.handler;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class AbstractServiceHandler<T> {
 
@@ -14,7 +16,36 @@ public abstract class AbstractServiceHandler<T> {
 
     public abstract void process(WebSocketSession session, T t) throws IOException;
 
+    /**
+     * Processes the commands of a batch frame addressed to this handler and returns one result per
+     * command, in order; results are sent back in the combined batch reply, a {@link Rejected} one as
+     * the command's error. The default processes them one at a time through {@link #process} and has
+     * no results; handlers override it to turn the whole group into a single call.
+     */
+    public List<?> processBatch(WebSocketSession session, List<T> batch) throws IOException {
+        List<Object> results = new ArrayList<>(batch.size());
+        for (T t : batch) {
+            process(session, t);
+            results.add(null);
+        }
+        return results;
+    }
+
+    /**
+     * Whether commands for this handler may run concurrently with the commands for other handlers of
+     * the same batch frame. Handlers that write should keep the default, so writes stay in frame order.
+     */
+    public boolean isConcurrent() {
+        return false;
+    }
+
     public Class<T> getType() {
         return type;
     }
+
+    /**
+     * Result of a batch command the handler refused, such as one without a body.
+     */
+    public record Rejected(String error) {
+    }
 }
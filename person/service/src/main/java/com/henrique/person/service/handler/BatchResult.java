@@ -0,0 +1,18 @@
+package com.henrique.person.service.handler;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one command of a batch frame, matched to the command by its correlation {@code id}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchResult(String id, String destination, Object result, String error) {
+
+    public static BatchResult ok(String id, String destination, Object result) {
+        return new BatchResult(id, destination, result, null);
+    }
+
+    public static BatchResult failed(String id, String destination, String error) {
+        return new BatchResult(id, destination, null, error);
+    }
+}
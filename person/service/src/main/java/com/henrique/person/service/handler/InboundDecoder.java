@@ -0,0 +1,131 @@
+package com.henrique.person.service.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Single-pass decoder of inbound frames shaped as {@code {"id": ..., "destination": ..., "body": ...}},
+ * or of batch frames holding an array of such commands; {@code id} is an optional correlation id.
+ *
+ * <p>The frame is read with a streaming parser: once the destination is known, the body is bound
+ * straight to the handler's type through that handler's pre-built {@link ObjectReader}, without an
+ * intermediate tree. The body may be a JSON value or, as the SPA client sends it, a JSON document
+ * encoded in a string. A body that arrives before the destination is buffered as tokens.
+ */
+public class InboundDecoder {
+
+    /**
+     * A decoded command; {@code body} is {@code null} when absent or when no reader knows the destination.
+     */
+    public record Inbound(String id, String destination, Object body) {
+    }
+
+    private final JsonFactory jsonFactory;
+
+    public InboundDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Decodes a frame, using {@code readers} to find the reader for its destination ({@code null} to skip the body).
+     */
+    public Inbound decode(String payload, Function<String, ObjectReader> readers) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            return decodeObject(parser, readers);
+        }
+    }
+
+    /**
+     * Whether the frame is a batch, i.e. its first non-blank character opens an array.
+     */
+    public static boolean isBatch(String payload) {
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes a batch frame, a JSON array of commands, keeping their order.
+     */
+    public List<Inbound> decodeBatch(String payload, Function<String, ObjectReader> readers) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array");
+            }
+            List<Inbound> commands = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected a JSON object");
+                }
+                commands.add(decodeObject(parser, readers));
+            }
+            return commands;
+        }
+    }
+
+    /**
+     * Decodes the object the parser is positioned on (at its {@code START_OBJECT}), leaving it at the
+     * matching {@code END_OBJECT}.
+     */
+    public Inbound decodeObject(JsonParser parser, Function<String, ObjectReader> readers) throws IOException {
+        String id = null;
+        String destination = null;
+        Object body = null;
+        TokenBuffer pendingBody = null;
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            if ("id".equals(field)) {
+                id = parser.getValueAsString();
+            } else if ("destination".equals(field)) {
+                destination = parser.getValueAsString();
+            } else if ("body".equals(field)) {
+                if (destination != null) {
+                    body = readBody(parser, readers.apply(destination));
+                } else {
+                    pendingBody = TokenBuffer.asCopyOfValue(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (pendingBody != null && destination != null) {
+            try (JsonParser bodyParser = pendingBody.asParser()) {
+                bodyParser.nextToken();
+                body = readBody(bodyParser, readers.apply(destination));
+            }
+        }
+        return new Inbound(id, destination, body);
+    }
+
+    private static Object readBody(JsonParser parser, ObjectReader reader) throws IOException {
+        if (reader == null || parser.currentToken() == JsonToken.VALUE_NULL) {
+            parser.skipChildren();
+            return null;
+        }
+        if (parser.currentToken() == JsonToken.VALUE_STRING && !reader.getValueType().hasRawClass(String.class)) {
+            // the body is a JSON document encoded in a string
+            return reader.readValue(parser.getText());
+        }
+        return reader.readValue(parser);
+    }
+}
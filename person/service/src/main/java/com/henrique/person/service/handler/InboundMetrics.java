@@ -0,0 +1,62 @@
+package com.henrique.person.service.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound WebSocket meters: frames received (by kind) and their size, commands for unknown
+ * destinations, and handler latency tagged by destination, mode ({@code single} or {@code batch})
+ * and outcome. Only registered destinations become tags, so clients cannot grow the number of series.
+ */
+public class InboundMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter singleFrames;
+    private final Counter batchFrames;
+    private final Counter unknown;
+    private final DistributionSummary frameSize;
+    private final Map<Key, Timer> handlers = new ConcurrentHashMap<>();
+
+    public InboundMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.singleFrames = registry.counter("person.ws.inbound.frames", "kind", "single");
+        this.batchFrames = registry.counter("person.ws.inbound.frames", "kind", "batch");
+        this.unknown = registry.counter("person.ws.inbound.unknown");
+        this.frameSize = DistributionSummary.builder("person.ws.inbound.size")
+                .description("Payload size of inbound frames")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Records a whole inbound message; {@code size} is its length in characters, which for the ASCII
+     * JSON of this API is its size in bytes, without encoding the payload again to count them.
+     */
+    public void frame(boolean batch, int size) {
+        (batch ? batchFrames : singleFrames).increment();
+        frameSize.record(size);
+    }
+
+    public void unknown() {
+        unknown.increment();
+    }
+
+    public void handled(String destination, boolean batch, boolean failed, long latencyNanos) {
+        handlers.computeIfAbsent(new Key(destination, batch, failed), key -> Timer.builder("person.ws.inbound.handler")
+                .description("Time spent in the handler of a destination")
+                .tag("destination", key.destination())
+                .tag("mode", key.batch() ? "batch" : "single")
+                .tag("outcome", key.failed() ? "error" : "success")
+                .register(registry)
+        ).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private record Key(String destination, boolean batch, boolean failed) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Puts text messages the container delivered in parts back together. A message that fits the
+ * container buffer, nearly all of them, is passed through as is. For the others a buffer is borrowed
+ * from a small shared pool when the first part arrives and returned with the last one, so sessions
+ * hold no buffer of their own between messages. Buffers grown past {@link #RETAINED_CAPACITY} are not
+ * pooled, so one large message does not pin its memory.
+ *
+ * <p>The container delivers the parts of a session's message one after the other, so per-session
+ * state needs no locking.
+ */
+public class MessageAssembler {
+
+    static final int RETAINED_CAPACITY = 64 * 1024;
+
+    private static final String PARTIAL = "partialMessage";
+
+    private final int maxMessageSize;
+    private final int initialCapacity;
+    private final BlockingQueue<StringBuilder> pool;
+    private final Counter assembled;
+
+    public MessageAssembler(ServiceProperties properties, MeterRegistry meterRegistry) {
+        ServiceProperties.Buffers buffers = properties.getWebsocket().getBuffers();
+        this.maxMessageSize = buffers.getMaxMessageSize();
+        this.initialCapacity = Math.min(RETAINED_CAPACITY, Math.max(16, buffers.getTextBufferSize() * 2));
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, buffers.getPooledBuffers()));
+        this.assembled = meterRegistry.counter("person.ws.inbound.assembled");
+    }
+
+    /**
+     * Whether adding the part would take the session's message past the maximum size.
+     */
+    public boolean exceedsLimit(WebSocketSession session, TextMessage part) {
+        StringBuilder pending = (StringBuilder) session.getAttributes().get(PARTIAL);
+        return (pending == null ? 0 : pending.length()) + part.getPayload().length() > maxMessageSize;
+    }
+
+    /**
+     * Adds a part; returns the whole message once its last part is in, {@code null} while more are expected.
+     */
+    public String append(WebSocketSession session, TextMessage part) {
+        StringBuilder pending = (StringBuilder) session.getAttributes().get(PARTIAL);
+        if (pending == null) {
+            if (part.isLast()) {
+                return part.getPayload();
+            }
+            pending = borrow();
+            session.getAttributes().put(PARTIAL, pending);
+        }
+        pending.append(part.getPayload());
+        if (!part.isLast()) {
+            return null;
+        }
+        String message = pending.toString();
+        discard(session);
+        assembled.increment();
+        return message;
+    }
+
+    /**
+     * Drops the session's unfinished message, if any, and returns its buffer to the pool.
+     */
+    public void discard(WebSocketSession session) {
+        StringBuilder pending = (StringBuilder) session.getAttributes().remove(PARTIAL);
+        if (pending != null && pending.capacity() <= RETAINED_CAPACITY) {
+            pending.setLength(0);
+            pool.offer(pending);
+        }
+    }
+
+    int pooled() {
+        return pool.size();
+    }
+
+    private StringBuilder borrow() {
+        StringBuilder buffer = pool.poll();
+        return buffer != null ? buffer : new StringBuilder(initialCapacity);
+    }
+}
@@ -0,0 +1,43 @@
+package com.henrique.person.service.handler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound WebSocket meters, tagged by destination: messages waiting in session queues, messages
+ * dropped (by reason) and latency from enqueue until the frame was written.
+ */
+public class OutboundMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> queued = new ConcurrentHashMap<>();
+    private final Map<String, Timer> latency = new ConcurrentHashMap<>();
+
+    public OutboundMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void queued(String destination, int delta) {
+        queued.computeIfAbsent(destination, d ->
+                registry.gauge("person.ws.outbound.queued", Tags.of("destination", d), new AtomicInteger())
+        ).addAndGet(delta);
+    }
+
+    public void dropped(String destination, String reason) {
+        registry.counter("person.ws.outbound.dropped", "destination", destination, "reason", reason).increment();
+    }
+
+    public void sent(String destination, long latencyNanos) {
+        latency.computeIfAbsent(destination, d -> Timer.builder("person.ws.outbound.latency")
+                .description("Time from enqueue until the frame was written to the session")
+                .tag("destination", d)
+                .register(registry)
+        ).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+}
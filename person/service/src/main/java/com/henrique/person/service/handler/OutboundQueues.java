@@ -0,0 +1,95 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Owns the outbound queue of every open session. Queues are drained by the writer executor of
+ * {@link WebSocketExecutors}, shared by all sessions. Every half send time limit the queues are
+ * checked for a write running past the limit, so a stalled client is disconnected within one and a
+ * half times the limit rather than holding a writer until the TCP connection times out.
+ */
+@Component
+public class OutboundQueues implements DisposableBean {
+
+    private static final Duration MIN_CHECK_PERIOD = Duration.ofMillis(100);
+
+    private final ServiceProperties.Outbound config;
+    private final OutboundMetrics metrics;
+    private final Executor writers;
+    private final Map<String, SessionOutbound> queues = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> stalledWrites;
+
+    public OutboundQueues(ServiceProperties properties, MeterRegistry meterRegistry, WebSocketExecutors executors) {
+        this.config = properties.getWebsocket().getOutbound();
+        this.metrics = new OutboundMetrics(meterRegistry);
+        this.writers = executors.getWriters();
+
+        Gauge.builder("person.ws.outbound.buffered", this, OutboundQueues::bufferedSize)
+                .description("Payload waiting in the outbound queues of all sessions")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        Duration period = config.getSendTimeLimit().dividedBy(2);
+        this.stalledWrites = executors.getScheduler().scheduleAtFixedRate(this::closeStalled,
+                period.compareTo(MIN_CHECK_PERIOD) < 0 ? MIN_CHECK_PERIOD : period);
+    }
+
+    /**
+     * Queues a message for the session, unless the session is already closed.
+     */
+    public boolean offer(WebSocketSession session, String destination, WebSocketMessage<?> message) {
+        if (!session.isOpen()) {
+            metrics.dropped(destination, "closed");
+            return false;
+        }
+        return get(session).offer(destination, message);
+    }
+
+    public SessionOutbound get(WebSocketSession session) {
+        return queues.computeIfAbsent(session.getId(), id -> new SessionOutbound(session, config, writers, metrics));
+    }
+
+    public void remove(WebSocketSession session) {
+        SessionOutbound outbound = queues.remove(session.getId());
+        if (outbound != null) {
+            outbound.discard();
+        }
+    }
+
+    public long bufferedSize() {
+        long total = 0;
+        for (SessionOutbound outbound : queues.values()) {
+            total += outbound.bufferedSize();
+        }
+        return total;
+    }
+
+    /**
+     * Closes the sessions whose current write has been running longer than the send time limit.
+     */
+    public void closeStalled() {
+        long now = System.nanoTime();
+        for (SessionOutbound outbound : queues.values()) {
+            outbound.closeIfStalled(now);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        stalledWrites.cancel(false);
+        queues.values().forEach(SessionOutbound::discard);
+        queues.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.henrique.person.service.handler;
+
+/**
+ * What a session's outbound queue does when a new message does not fit.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Discard the oldest queued messages until the new one fits.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replace queued messages for the same destination with the new one, which carries the latest
+     * state; falls back to {@link #DROP_OLDEST} when there is nothing to replace.
+     */
+    COALESCE,
+
+    /**
+     * Close the session: the client cannot keep up.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,55 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.model.dto.PersonChangeDto;
+import com.henrique.person.service.changes.PersonChangeRelay;
+import com.henrique.person.service.changes.PersonChangeSubscriber;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+/**
+ * Pushes the person change stream to the sessions subscribed to the {@code person.changes} topic, one
+ * frame per batch. A client resumes after a reconnect by sending the offset of the last change it saw
+ * to {@code person.changes.replay}: the changes published since then are sent to that session on
+ * {@code person.changes}. Subscribe before replaying and skip changes whose id was already seen.
+ */
+@Component
+public class PersonChangesHandler extends AbstractServiceHandler<Long> implements PersonChangeSubscriber {
+
+    public static final String TOPIC = "person.changes";
+    public static final String REPLAY = "person.changes.replay";
+
+    private final WebSocketHandler webSocketHandler;
+    private final PersonChangeRelay relay;
+
+    public PersonChangesHandler(WebSocketHandler webSocketHandler, PersonChangeRelay relay) {
+        super(Long.class);
+        this.webSocketHandler = webSocketHandler;
+        this.relay = relay;
+    }
+
+    @PostConstruct
+    void register() {
+        webSocketHandler.register(REPLAY, this);
+        relay.subscribe(this, null);
+    }
+
+    @PreDestroy
+    void unregister() {
+        relay.unsubscribe(this);
+    }
+
+    @Override
+    public void process(WebSocketSession session, Long after) {
+        relay.replay(after == null ? 0 : after, page -> webSocketHandler.sendToSession(session, TOPIC, page));
+    }
+
+    @Override
+    public boolean deliver(List<PersonChangeDto> changes) {
+        webSocketHandler.broadcastLocal(TOPIC, changes);
+        return true;
+    }
+}
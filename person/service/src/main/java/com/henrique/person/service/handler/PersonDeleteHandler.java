@@ -0,0 +1,70 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.PersonBatchService;
+import com.henrique.person.service.PersonService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@code person.delete}: deletes the person whose id is the body and replies on {@code person.deleted}
+ * with the id, or {@code null} when there was no such person. In a batch frame all deletes become one
+ * bulk statement, with the same result per command.
+ */
+@Component
+public class PersonDeleteHandler extends AbstractServiceHandler<Long> {
+
+    public static final String DESTINATION = "person.delete";
+    public static final String REPLY = "person.deleted";
+
+    private static final String MISSING_ID = "person.delete needs the id as body";
+
+    private final WebSocketHandler webSocketHandler;
+    private final PersonService personService;
+    private final PersonBatchService batchService;
+
+    public PersonDeleteHandler(WebSocketHandler webSocketHandler, PersonService personService, PersonBatchService batchService) {
+        super(Long.class);
+        this.webSocketHandler = webSocketHandler;
+        this.personService = personService;
+        this.batchService = batchService;
+    }
+
+    @PostConstruct
+    void register() {
+        webSocketHandler.register(DESTINATION, this);
+    }
+
+    @Override
+    public void process(WebSocketSession session, Long id) {
+        if (id == null) {
+            webSocketHandler.sendToSession(session, WebSocketHandler.ERROR, MISSING_ID);
+            return;
+        }
+        webSocketHandler.sendToSession(session, REPLY, personService.delete(id) ? id : null);
+    }
+
+    @Override
+    public List<?> processBatch(WebSocketSession session, List<Long> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Long id : batch) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        Set<Long> deleted = batchService.deleteExisting(ids);
+        List<Object> results = new ArrayList<>(batch.size());
+        for (Long id : batch) {
+            if (id == null) {
+                results.add(new Rejected(MISSING_ID));
+            } else {
+                results.add(deleted.contains(id) ? id : null);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,59 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.PersonService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code person.get}: replies on {@code person} with the person whose id is the body, or {@code null}.
+ * A frame without a body is refused on {@code error}. Reads are safe to run concurrently with the other groups of a batch frame.
+ */
+@Component
+public class PersonGetHandler extends AbstractServiceHandler<Long> {
+
+    public static final String DESTINATION = "person.get";
+    public static final String REPLY = "person";
+
+    private static final String MISSING_ID = "person.get needs the id as body";
+
+    private final WebSocketHandler webSocketHandler;
+    private final PersonService personService;
+
+    public PersonGetHandler(WebSocketHandler webSocketHandler, PersonService personService) {
+        super(Long.class);
+        this.webSocketHandler = webSocketHandler;
+        this.personService = personService;
+    }
+
+    @PostConstruct
+    void register() {
+        webSocketHandler.register(DESTINATION, this);
+    }
+
+    @Override
+    public void process(WebSocketSession session, Long id) {
+        if (id == null) {
+            webSocketHandler.sendToSession(session, WebSocketHandler.ERROR, MISSING_ID);
+            return;
+        }
+        webSocketHandler.sendToSession(session, REPLY, personService.getById(id).orElse(null));
+    }
+
+    @Override
+    public List<?> processBatch(WebSocketSession session, List<Long> batch) {
+        List<Object> results = new ArrayList<>(batch.size());
+        for (Long id : batch) {
+            results.add(id == null ? new Rejected(MISSING_ID) : personService.getById(id).orElse(null));
+        }
+        return results;
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.service.PersonBatchService;
+import com.henrique.person.service.PersonService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@code person.save}: creates the person when the body has no id, updates it otherwise, and replies
+ * with the saved person on {@code person.saved}. An update carrying a stale version is rejected and
+ * the current state is sent on {@code person.conflict} instead. A frame without a body is refused on
+ * {@code error}. In a batch frame all saves become one bulk write, and a stale update fails on its own
+ * with an error.
+ */
+@Component
+public class PersonSaveHandler extends AbstractServiceHandler<PersonDto> {
+
+    public static final String DESTINATION = "person.save";
+    public static final String REPLY = "person.saved";
+    public static final String CONFLICT = "person.conflict";
+
+    private static final String MISSING_BODY = "person.save needs the person as body";
+
+    private final WebSocketHandler webSocketHandler;
+    private final PersonService personService;
+    private final PersonBatchService batchService;
+
+    public PersonSaveHandler(WebSocketHandler webSocketHandler, PersonService personService, PersonBatchService batchService) {
+        super(PersonDto.class);
+        this.webSocketHandler = webSocketHandler;
+        this.personService = personService;
+        this.batchService = batchService;
+    }
+
+    @PostConstruct
+    void register() {
+        webSocketHandler.register(DESTINATION, this);
+    }
+
+    @Override
+    public void process(WebSocketSession session, PersonDto dto) {
+        if (dto == null) {
+            webSocketHandler.sendToSession(session, WebSocketHandler.ERROR, MISSING_BODY);
+            return;
+        }
+        if (dto.getId() == null) {
+            webSocketHandler.sendToSession(session, REPLY, personService.create(dto));
+            return;
+        }
+        try {
+            webSocketHandler.sendToSession(session, REPLY, personService.update(dto).orElse(null));
+        } catch (OptimisticLockingFailureException e) {
+            webSocketHandler.sendToSession(session, CONFLICT, personService.getById(dto.getId()).orElse(null));
+        }
+    }
+
+    @Override
+    public List<?> processBatch(WebSocketSession session, List<PersonDto> batch) {
+        List<PersonDto> dtos = new ArrayList<>(batch.size());
+        for (PersonDto dto : batch) {
+            if (dto != null) {
+                dtos.add(dto);
+            }
+        }
+        Set<Integer> stale = new HashSet<>();
+        Iterator<PersonDto> saved = batchService.saveAll(dtos, stale::add).iterator();
+        List<Object> results = new ArrayList<>(batch.size());
+        int index = 0;
+        for (PersonDto dto : batch) {
+            if (dto == null) {
+                results.add(new Rejected(MISSING_BODY));
+                continue;
+            }
+            PersonDto result = saved.next();
+            results.add(stale.contains(index++) ? new Rejected(staleVersion(dto)) : result);
+        }
+        return results;
+    }
+
+    private static String staleVersion(PersonDto dto) {
+        return "Person " + dto.getId() + " is no longer at version " + dto.getVersion();
+    }
+}
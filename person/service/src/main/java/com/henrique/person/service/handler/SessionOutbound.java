@@ -0,0 +1,262 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.config.ServiceProperties;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outbound queue of a single session.
+ *
+ * <p>Producers only enqueue and never touch the socket, so a slow client cannot block them. A single
+ * writer task, scheduled on the shared executor whenever the queue goes from empty to non-empty,
+ * drains the queue in order; this also guarantees that {@link WebSocketSession#sendMessage} is never
+ * called concurrently for the same session.
+ *
+ * <p>A write to a client that stopped reading blocks its writer. {@link OutboundQueues} checks every
+ * session for a write running past the send time limit and closes it, which fails the blocked write
+ * and frees the writer.
+ */
+public class SessionOutbound {
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final OutboundMetrics metrics;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxMessages;
+    private final long bufferSizeLimit;
+    private final long sendTimeLimitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private long bufferedSize;
+    private volatile boolean closed;
+    private volatile Sending sending;
+
+    public SessionOutbound(WebSocketSession session, ServiceProperties.Outbound config, Executor executor, OutboundMetrics metrics) {
+        this.session = session;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.maxMessages = Math.max(1, config.getMaxMessages());
+        this.bufferSizeLimit = config.getBufferSizeLimit();
+        this.sendTimeLimitNanos = config.getSendTimeLimit().toNanos();
+    }
+
+    /**
+     * Queues a message for the session. Returns {@code false} if it was rejected because the session
+     * is closed or was disconnected by the overflow policy, or because the message alone is larger than
+     * the buffer size limit and could never be queued within it.
+     */
+    public boolean offer(String destination, WebSocketMessage<?> message) {
+        if (closed) {
+            metrics.dropped(destination, "closed");
+            return false;
+        }
+
+        Entry entry = new Entry(destination, message, System.nanoTime());
+        if (entry.size() > bufferSizeLimit) {
+            metrics.dropped(destination, "oversize");
+            return false;
+        }
+        boolean accepted;
+        lock.lock();
+        try {
+            accepted = fits(entry) || makeRoom(entry);
+            if (accepted) {
+                queue.addLast(entry);
+                bufferedSize += entry.size();
+                metrics.queued(destination, 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (!accepted) {
+            metrics.dropped(destination, "disconnect");
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // the message stays queued and the next offer schedules the writer again
+                draining.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops everything still queued, e.g. once the connection is closed.
+     */
+    public void discard() {
+        lock.lock();
+        try {
+            closeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the session if a write started more than the send time limit before {@code now}.
+     */
+    public boolean closeIfStalled(long now) {
+        Sending current = sending;
+        if (current == null || now - current.startedAt() <= sendTimeLimitNanos) {
+            return false;
+        }
+        metrics.dropped(current.destination(), "stalled");
+        close(CloseStatus.SESSION_NOT_RELIABLE);
+        return true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Payload size waiting to be written, as counted against the buffer size limit.
+     */
+    public long bufferedSize() {
+        lock.lock();
+        try {
+            return bufferedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(Entry entry) {
+        return queue.size() < maxMessages && bufferedSize + entry.size() <= bufferSizeLimit;
+    }
+
+    private boolean makeRoom(Entry entry) {
+        switch (overflowPolicy) {
+            case DISCONNECT:
+                return false;
+            case COALESCE:
+                Iterator<Entry> iterator = queue.iterator();
+                while (iterator.hasNext()) {
+                    Entry queued = iterator.next();
+                    if (queued.destination().equals(entry.destination())) {
+                        iterator.remove();
+                        bufferedSize -= queued.size();
+                        metrics.queued(queued.destination(), -1);
+                        metrics.dropped(queued.destination(), "coalesced");
+                    }
+                }
+                // fall through to drop-oldest if that was not enough
+            case DROP_OLDEST:
+            default:
+                while (!queue.isEmpty() && !fits(entry)) {
+                    Entry oldest = queue.pollFirst();
+                    bufferedSize -= oldest.size();
+                    metrics.queued(oldest.destination(), -1);
+                    metrics.dropped(oldest.destination(), "overflow");
+                }
+                return true;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Entry entry;
+            lock.lock();
+            try {
+                entry = queue.pollFirst();
+                if (entry != null) {
+                    bufferedSize -= entry.size();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (entry == null) {
+                draining.set(false);
+                // a producer may have enqueued after the poll but before the flag was cleared
+                if (size() == 0 || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            metrics.queued(entry.destination(), -1);
+            if (!closed) {
+                send(entry);
+            }
+        }
+    }
+
+    private void send(Entry entry) {
+        long startedAt = System.nanoTime();
+        sending = new Sending(entry.destination(), startedAt);
+        try {
+            session.sendMessage(entry.message());
+        } catch (IOException | RuntimeException e) {
+            if (!closed) {
+                // otherwise the session was closed under the write and the message already counted as stalled
+                metrics.dropped(entry.destination(), "error");
+            }
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        } finally {
+            sending = null;
+        }
+        long finishedAt = System.nanoTime();
+        metrics.sent(entry.destination(), finishedAt - entry.enqueuedAt());
+
+        if (finishedAt - startedAt > sendTimeLimitNanos) {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private void close(CloseStatus status) {
+        discard();
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            // the connection is already gone
+        }
+    }
+
+    private void closeLocked() {
+        closed = true;
+        for (Entry queued : queue) {
+            metrics.queued(queued.destination(), -1);
+            metrics.dropped(queued.destination(), "closed");
+        }
+        queue.clear();
+        bufferedSize = 0;
+    }
+
+    private record Entry(String destination, WebSocketMessage<?> message, long enqueuedAt) {
+
+        int size() {
+            return message.getPayloadLength();
+        }
+    }
+
+    private record Sending(String destination, long startedAt) {
+    }
+}
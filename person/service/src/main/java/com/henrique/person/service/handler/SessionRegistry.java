@@ -0,0 +1,107 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open sessions by client UUID. A client may hold a bounded number of sessions (e.g. several tabs);
+ * registering one more pushes out its oldest session. Sessions are removed individually, so a
+ * late close of an old connection never drops the client's newer ones.
+ */
+@Component
+public class SessionRegistry {
+
+    private final int maxSessionsPerClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Deque<WebSocketSession>> byClient = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public SessionRegistry(ServiceProperties properties, MeterRegistry meterRegistry) {
+        this.maxSessionsPerClient = Math.max(1, properties.getWebsocket().getMaxSessionsPerClient());
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("person.ws.sessions", this, SessionRegistry::size)
+                .description("Open WebSocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("person.ws.clients", this, SessionRegistry::clientCount)
+                .description("Distinct client UUIDs with at least one open session")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers the session and returns the sessions of the same client now over the limit, oldest
+     * first. They are no longer registered; the caller is expected to close them.
+     */
+    public List<WebSocketSession> add(String clientUuid, WebSocketSession session) {
+        List<WebSocketSession> overLimit = new ArrayList<>();
+        byClient.compute(clientUuid, (key, sessions) -> {
+            Deque<WebSocketSession> deque = sessions != null ? sessions : new ConcurrentLinkedDeque<>();
+            deque.addLast(session);
+            size.incrementAndGet();
+            while (deque.size() > maxSessionsPerClient) {
+                overLimit.add(deque.pollFirst());
+                size.decrementAndGet();
+            }
+            return deque;
+        });
+        for (int i = 0; i < overLimit.size(); i++) {
+            evicted("limit");
+        }
+        return overLimit;
+    }
+
+    /**
+     * Removes the session, if it is still registered for the client.
+     */
+    public boolean remove(String clientUuid, WebSocketSession session) {
+        boolean[] removed = new boolean[1];
+        byClient.computeIfPresent(clientUuid, (key, sessions) -> {
+            if (sessions.remove(session)) {
+                removed[0] = true;
+                size.decrementAndGet();
+            }
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return removed[0];
+    }
+
+    public Collection<WebSocketSession> get(String clientUuid) {
+        Deque<WebSocketSession> sessions = byClient.get(clientUuid);
+        return sessions == null ? List.of() : sessions;
+    }
+
+    /**
+     * A snapshot of every registered session.
+     */
+    public List<WebSocketSession> all() {
+        List<WebSocketSession> all = new ArrayList<>(size.get());
+        for (Deque<WebSocketSession> sessions : byClient.values()) {
+            all.addAll(sessions);
+        }
+        return all;
+    }
+
+    public void evicted(String reason) {
+        meterRegistry.counter("person.ws.sessions.evicted", "reason", reason).increment();
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int clientCount() {
+        return byClient.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.config.ServiceProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executors used by the WebSocket layer: the writers that drain session outbound queues and the
+ * dispatchers that run the concurrent parts of batch frames. Both run on virtual threads when
+ * {@code spring.threads.virtual.enabled} is set, otherwise on small platform-thread pools. A single
+ * scheduler thread runs the periodic checks, such as the one for stalled writes.
+ */
+@Component
+public class WebSocketExecutors implements DisposableBean {
+
+    private final TaskExecutor writers;
+    private final TaskExecutor dispatchers;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    public WebSocketExecutors(ServiceProperties properties, Environment environment) {
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+        ServiceProperties.WebSocket config = properties.getWebsocket();
+        this.writers = create("ws-writer-", config.getOutbound().getWriterThreads(), virtualThreads);
+        this.dispatchers = create("ws-dispatch-", config.getDispatchThreads(), virtualThreads);
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setThreadNamePrefix("ws-scheduler-");
+        this.scheduler.setDaemon(true);
+        this.scheduler.initialize();
+    }
+
+    public TaskExecutor getWriters() {
+        return writers;
+    }
+
+    public TaskExecutor getDispatchers() {
+        return dispatchers;
+    }
+
+    public TaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public void destroy() {
+        shutdown(writers);
+        shutdown(dispatchers);
+        scheduler.shutdown();
+    }
+
+    private static TaskExecutor create(String threadNamePrefix, int threads, boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private static void shutdown(TaskExecutor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor simple) {
+            simple.close();
+        }
+    }
+}
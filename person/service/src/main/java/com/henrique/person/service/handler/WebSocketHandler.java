@@ -1,57 +1,353 @@
 package com.henrique.person.service.handler;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.limit.ConcurrencyLimiter;
+import com.henrique.person.service.limit.RateLimiter;
+import com.henrique.person.service.relay.ClusterRelay;
+import com.henrique.person.service.relay.RelayMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 @Component
 public class WebSocketHandler extends TextWebSocketHandler {
 
+    /**
+     * Inbound destination to subscribe the session to the topic named in the body.
+     */
+    public static final String SUBSCRIBE = "subscribe";
+
+    /**
+     * Inbound destination to unsubscribe the session from the topic named in the body.
+     */
+    public static final String UNSUBSCRIBE = "unsubscribe";
+
+    /**
+     * Outbound destination of the combined reply to a batch frame.
+     */
+    public static final String BATCH = "batch";
+
+    /**
+     * Outbound destination of the error for a single command that was refused, e.g. for a missing body.
+     */
+    public static final String ERROR = "error";
+
+    private static final String PING = "ping";
+    private static final String UPDATED_AT = "updatedAt";
+    private static final CloseStatus TOO_MANY_SESSIONS = CloseStatus.POLICY_VIOLATION.withReason("Too many sessions for client");
+    private static final CloseStatus RATE_LIMITED = CloseStatus.POLICY_VIOLATION.withReason("Rate limit exceeded");
+    private static final CloseStatus OVERLOADED = CloseStatus.SERVICE_OVERLOAD.withReason("Overloaded, try again later");
+    private static final CloseStatus TOO_BIG = CloseStatus.TOO_BIG_TO_PROCESS.withReason("Message too large");
+
     private final ObjectMapper objectMapper;
+    private final OutboundQueues outboundQueues;
+    private final SessionRegistry sessionRegistry;
+    private final ClusterRelay clusterRelay;
+    private final InboundDecoder decoder;
+    private final InboundMetrics inboundMetrics;
+    private final MessageAssembler assembler;
+    private final RateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ServiceProperties.Rate messageRate;
+    private final Map<String, ServiceProperties.Rate> destinationRates;
+    private final ObjectReader topicReader;
+    private final ObjectWriter frameWriter;
+    private final Executor dispatchers;
+    private final int maxBatchCommands;
+    private final long idleTimeoutMillis;
 
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, AbstractServiceHandler<?>> services = new ConcurrentHashMap<>();
+    private final Map<String, Route> services = new ConcurrentHashMap<>();
+    private final Map<String, Set<WebSocketSession>> subscriptions = new ConcurrentHashMap<>();
 
-    public WebSocketHandler(ObjectMapper objectMapper) {
+    public WebSocketHandler(ObjectMapper objectMapper, OutboundQueues outboundQueues, SessionRegistry sessionRegistry,
+                            ClusterRelay clusterRelay, WebSocketExecutors executors, RateLimiter rateLimiter,
+                            ConcurrencyLimiter concurrencyLimiter, ServiceProperties properties, MeterRegistry meterRegistry) {
         this.objectMapper = objectMapper;
+        this.outboundQueues = outboundQueues;
+        this.sessionRegistry = sessionRegistry;
+        this.clusterRelay = clusterRelay;
+        this.decoder = new InboundDecoder(objectMapper.getFactory());
+        this.inboundMetrics = new InboundMetrics(meterRegistry);
+        this.assembler = new MessageAssembler(properties, meterRegistry);
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.messageRate = properties.getLimits().getWebsocket().getMessage();
+        this.destinationRates = properties.getLimits().getWebsocket().getDestinations();
+        this.topicReader = objectMapper.readerFor(String.class);
+        // resolved once, instead of a Map serializer looking up key and value types on every frame
+        this.frameWriter = objectMapper.writerFor(OutboundFrame.class);
+        this.dispatchers = executors.getDispatchers();
+        this.maxBatchCommands = properties.getWebsocket().getMaxBatchCommands();
+        this.idleTimeoutMillis = properties.getWebsocket().getIdleTimeout().toMillis();
+    }
+
+    /**
+     * Starts delivering the messages other nodes relay for clients and topics of this node.
+     */
+    @PostConstruct
+    public void joinCluster() {
+        clusterRelay.onReceive(this::deliverRelayed);
     }
 
     public void register(String topic, AbstractServiceHandler<?> abstractServiceHandler) {
-        services.put(topic, abstractServiceHandler);
+        services.put(topic, new Route(abstractServiceHandler, objectMapper.readerFor(abstractServiceHandler.getType())));
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        // Store the session with the client UUID as the key
-        String clientUuid = getClientUuid(session);
-        sessions.put(clientUuid, session);
+        session.getAttributes().put(UPDATED_AT, System.currentTimeMillis());
+        for (WebSocketSession overLimit : sessionRegistry.add(getClientUuid(session), session)) {
+            close(overLimit, TOO_MANY_SESSIONS);
+        }
+    }
+
+    /**
+     * Messages longer than the container's text buffer arrive in parts, see {@link MessageAssembler}.
+     */
+    @Override
+    public boolean supportsPartialMessages() {
+        return true;
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        String payload = message.getPayload();
-        JsonNode jsonNode = objectMapper.readTree(payload);
+        if (assembler.exceedsLimit(session, message)) {
+            close(session, TOO_BIG);
+            return;
+        }
+        String payload = assembler.append(session, message);
+        if (payload == null) {
+            return;
+        }
+        boolean batch = InboundDecoder.isBatch(payload);
+        inboundMetrics.frame(batch, payload.length());
+        if (batch) {
+            handleBatch(session, decoder.decodeBatch(payload, this::readerFor));
+        } else {
+            dispatch(session, decoder.decode(payload, this::readerFor));
+        }
+
+        session.getAttributes().put(UPDATED_AT, System.currentTimeMillis());
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        session.getAttributes().put(UPDATED_AT, System.currentTimeMillis());
+    }
+
+    /**
+     * Pings every open session through its outbound queue and closes the ones that have not sent a
+     * message or answered a ping within the idle timeout. Sessions the container failed to report as
+     * closed are released here as well.
+     */
+    @Scheduled(fixedDelayString = "${person.websocket.heartbeat-interval:30s}")
+    public void heartbeat() {
+        long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+        for (WebSocketSession session : sessionRegistry.all()) {
+            if (!session.isOpen()) {
+                release(session);
+            } else if ((Long) session.getAttributes().getOrDefault(UPDATED_AT, 0L) < idleSince) {
+                sessionRegistry.evicted("idle");
+                close(session, CloseStatus.SESSION_NOT_RELIABLE);
+            } else {
+                outboundQueues.offer(session, PING, new PingMessage());
+            }
+        }
+    }
+
+    private void dispatch(WebSocketSession session, InboundDecoder.Inbound inbound) throws IOException {
+        String destination = inbound.destination();
 
-        // Extract destination and body from the message
-        String destination = jsonNode.get("destination").asText();
-        AbstractServiceHandler<?> abstractServiceHandler = services.get(destination);
-        if (abstractServiceHandler != null) {
-            Class<?> clazz = abstractServiceHandler.getType();
-            Object object = jsonNode.has("body") ? objectMapper.readValue(jsonNode.get("body").asText(), clazz) : null;
-            processGeneric(abstractServiceHandler, session, object);
+        if (SUBSCRIBE.equals(destination) || UNSUBSCRIBE.equals(destination)) {
+            // The body is the plain topic name
+            String topic = (String) inbound.body();
+            if (topic != null && !topic.isEmpty()) {
+                if (SUBSCRIBE.equals(destination)) {
+                    subscribe(session, topic);
+                } else {
+                    unsubscribe(session, topic);
+                }
+            }
+        } else if (destination != null) {
+            Route route = services.get(destination);
+            if (route == null) {
+                inboundMetrics.unknown();
+                return;
+            }
+            // a single frame has no reply to carry the refusal, so the session is closed with a code the client can act on
+            if (!rateAllows(session, destination, 1)) {
+                close(session, RATE_LIMITED);
+                return;
+            }
+            if (!concurrencyLimiter.tryAcquire()) {
+                close(session, OVERLOADED);
+                return;
+            }
+            long startedAt = System.nanoTime();
+            boolean failed = true;
+            try {
+                processGeneric(route.handler(), session, inbound.body());
+                failed = false;
+            } finally {
+                long latency = System.nanoTime() - startedAt;
+                concurrencyLimiter.release(latency);
+                inboundMetrics.handled(destination, false, failed, latency);
+            }
+        } else {
+            inboundMetrics.unknown();
         }
+    }
+
+    /**
+     * Runs a batch frame. Commands are grouped by destination and each group is handed to its handler
+     * as one {@link AbstractServiceHandler#processBatch} call. Groups of concurrent handlers run in
+     * parallel on the dispatch executor; the others run in frame order on the receiving thread. A
+     * single reply on {@link #BATCH} then carries one {@link BatchResult} per command, in frame order.
+     *
+     * <p>Each command takes one permit from the rate limit of its destination; groups over the limit,
+     * and the whole frame when the node is overloaded, fail in the reply instead of closing the session.
+     */
+    private void handleBatch(WebSocketSession session, List<InboundDecoder.Inbound> commands) throws IOException {
+        if (commands.size() > maxBatchCommands) {
+            sendToSession(session, BATCH, List.of(BatchResult.failed(null, null, "Batch exceeds " + maxBatchCommands + " commands")));
+            return;
+        }
+
+        BatchResult[] results = new BatchResult[commands.size()];
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            InboundDecoder.Inbound command = commands.get(i);
+            String destination = command.destination();
+            if (SUBSCRIBE.equals(destination) || UNSUBSCRIBE.equals(destination)) {
+                dispatch(session, command);
+                results[i] = BatchResult.ok(command.id(), destination, null);
+            } else if (destination != null && services.containsKey(destination)) {
+                groups.computeIfAbsent(destination, d -> new ArrayList<>()).add(i);
+            } else {
+                inboundMetrics.unknown();
+                results[i] = BatchResult.failed(command.id(), destination, "Unknown destination");
+            }
+        }
+
+        groups.entrySet().removeIf(group -> {
+            if (rateAllows(session, group.getKey(), group.getValue().size())) {
+                return false;
+            }
+            fail(commands, group.getValue(), results, "Rate limit exceeded");
+            return true;
+        });
+
+        if (!groups.isEmpty()) {
+            if (concurrencyLimiter.tryAcquire()) {
+                try {
+                    runGroups(session, commands, groups, results);
+                } finally {
+                    // the duration of a frame depends on its size, so it says nothing about the load
+                    concurrencyLimiter.release(ConcurrencyLimiter.NO_SAMPLE);
+                }
+            } else {
+                for (List<Integer> indexes : groups.values()) {
+                    fail(commands, indexes, results, "Overloaded, try again later");
+                }
+            }
+        }
+
+        sendToSession(session, BATCH, Arrays.asList(results));
+    }
+
+    private void runGroups(WebSocketSession session, List<InboundDecoder.Inbound> commands, Map<String, List<Integer>> groups,
+                           BatchResult[] results) {
+        List<CompletableFuture<Void>> concurrent = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            Route route = services.get(group.getKey());
+            Runnable task = () -> runGroup(session, route.handler(), commands, group.getValue(), results);
+            if (route.handler().isConcurrent()) {
+                concurrent.add(CompletableFuture.runAsync(task, dispatchers));
+            } else {
+                task.run();
+            }
+        }
+        CompletableFuture.allOf(concurrent.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void runGroup(WebSocketSession session, AbstractServiceHandler<?> handler, List<InboundDecoder.Inbound> commands,
+                          List<Integer> indexes, BatchResult[] results) {
+        List<Object> bodies = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            bodies.add(commands.get(index).body());
+        }
+
+        String destination = commands.get(indexes.get(0)).destination();
+        long startedAt = System.nanoTime();
+        try {
+            List<?> groupResults = processBatchGeneric(handler, session, bodies);
+            inboundMetrics.handled(destination, true, false, System.nanoTime() - startedAt);
+            for (int k = 0; k < indexes.size(); k++) {
+                InboundDecoder.Inbound command = commands.get(indexes.get(k));
+                Object result = groupResults != null && k < groupResults.size() ? groupResults.get(k) : null;
+                results[indexes.get(k)] = result instanceof AbstractServiceHandler.Rejected rejected
+                        ? BatchResult.failed(command.id(), command.destination(), rejected.error())
+                        : BatchResult.ok(command.id(), command.destination(), result);
+            }
+        } catch (IOException | RuntimeException e) {
+            inboundMetrics.handled(destination, true, true, System.nanoTime() - startedAt);
+            fail(commands, indexes, results, e.getMessage());
+        }
+    }
+
+    private static void fail(List<InboundDecoder.Inbound> commands, List<Integer> indexes, BatchResult[] results, String error) {
+        for (int index : indexes) {
+            InboundDecoder.Inbound command = commands.get(index);
+            results[index] = BatchResult.failed(command.id(), command.destination(), error);
+        }
+    }
 
-        session.getAttributes().put("updatedAt", new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date()));
+    /**
+     * Takes {@code permits} from the session's client bucket for the destination, a registered one. A
+     * group larger than the burst costs the whole burst instead, as a full bucket could never hold it.
+     */
+    private boolean rateAllows(WebSocketSession session, String destination, int permits) {
+        ServiceProperties.Rate rate = destinationRates.getOrDefault(destination, messageRate);
+        int cost = Math.min(permits, Math.max(1, rate.getBurst()));
+        return rateLimiter.tryAcquire("ws." + destination, rate, limitKey(session), cost) == 0;
+    }
+
+    /**
+     * The authenticated user when there is one, so all of a user's sessions share their limits.
+     */
+    private String limitKey(WebSocketSession session) {
+        Principal principal = session.getPrincipal();
+        return principal != null ? principal.getName() : getClientUuid(session);
+    }
+
+    private ObjectReader readerFor(String destination) {
+        if (SUBSCRIBE.equals(destination) || UNSUBSCRIBE.equals(destination)) {
+            return topicReader;
+        }
+        Route route = services.get(destination);
+        return route == null ? null : route.reader();
     }
 
     @SuppressWarnings("unchecked")
@@ -59,32 +355,152 @@ public class WebSocketHandler extends TextWebSocketHandler {
         handler.process(session, (T) obj);
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> List<?> processBatchGeneric(AbstractServiceHandler<T> handler, WebSocketSession session, List<Object> bodies) throws IOException {
+        return handler.processBatch(session, (List<T>) bodies);
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        session.getAttributes().put("disconectedAt", new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new Date()));
+        release(session);
+        session.getAttributes().put("disconectedAt", System.currentTimeMillis());
+    }
+
+    private void release(WebSocketSession session) {
+        sessionRegistry.remove(getClientUuid(session), session);
+        unsubscribeAll(session);
+        outboundQueues.remove(session);
+        assembler.discard(session);
+    }
+
+    private void close(WebSocketSession session, CloseStatus status) {
+        release(session);
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            // the connection is already gone
+        }
     }
 
     public String getClientUuid(WebSocketSession session) {
         return (String) session.getAttributes().getOrDefault("clientUuid", session.getId());
     }
 
+    public void subscribe(WebSocketSession session, String destination) {
+        subscriptions.compute(destination, (topic, subscribers) -> {
+            Set<WebSocketSession> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(session);
+            return set;
+        });
+    }
+
+    public void unsubscribe(WebSocketSession session, String destination) {
+        subscriptions.computeIfPresent(destination, (topic, subscribers) -> {
+            subscribers.remove(session);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private void unsubscribeAll(WebSocketSession session) {
+        for (String destination : subscriptions.keySet()) {
+            unsubscribe(session, destination);
+        }
+    }
+
+    public int getSubscriberCount(String destination) {
+        Set<WebSocketSession> subscribers = subscriptions.get(destination);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    /**
+     * Sends {@code data} to every session subscribed to {@code destination}, on this node and, through
+     * the {@link ClusterRelay}, on the others. The payload is serialized once into a single shared
+     * frame; each subscriber's writer then sends it in parallel, so the cost on the calling thread is
+     * one serialization plus one enqueue per local subscriber. Returns the number of local sessions
+     * the message was queued for.
+     */
+    public int broadcast(String destination, Object data) {
+        TextMessage message = encode(destination, data);
+        clusterRelay.publish(RelayMessage.toTopic(destination, message.getPayload()));
+        return deliverToTopic(destination, message);
+    }
+
+    /**
+     * Like {@link #broadcast}, but only to the subscribers of this node, for data every node publishes
+     * on its own (such as the person change stream).
+     */
+    public int broadcastLocal(String destination, Object data) {
+        return deliverToTopic(destination, encode(destination, data));
+    }
+
+    /**
+     * Serializes the message on the caller's thread and queues it for the session; the write itself
+     * happens asynchronously on the session's writer, see {@link SessionOutbound}.
+     */
     public void sendToSession(WebSocketSession session, String destination, Object data) {
-        // Create a message with destination and body
-        Map<String, Object> message = Map.of(
-                "destination", destination,
-                "body", data
-        );
+        outboundQueues.offer(session, destination, encode(destination, data));
+    }
+
+    /**
+     * Queues the message for every session of the client, wherever in the cluster it is connected.
+     * Returns how many local sessions it was queued for.
+     */
+    public int sendToClientId(String clientId, String destination, Object data) {
+        TextMessage message = encode(destination, data);
+        clusterRelay.publish(RelayMessage.toClient(clientId, destination, message.getPayload()));
+        return deliverToClient(clientId, destination, message);
+    }
+
+    private void deliverRelayed(RelayMessage relayed) {
+        TextMessage message = new TextMessage(relayed.payload());
+        switch (relayed.target()) {
+            case CLIENT -> deliverToClient(relayed.key(), relayed.destination(), message);
+            case TOPIC -> deliverToTopic(relayed.key(), message);
+        }
+    }
+
+    private int deliverToTopic(String destination, TextMessage message) {
+        Set<WebSocketSession> subscribers = subscriptions.get(destination);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return 0;
+        }
+
+        int queued = 0;
+        for (WebSocketSession subscriber : subscribers) {
+            if (outboundQueues.offer(subscriber, destination, message)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
 
-        // Convert to JSON and send
+    private int deliverToClient(String clientId, String destination, TextMessage message) {
+        int queued = 0;
+        for (WebSocketSession target : sessionRegistry.get(clientId)) {
+            if (outboundQueues.offer(target, destination, message)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    private TextMessage encode(String destination, Object data) {
         try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(jsonMessage));
+            return new TextMessage(frameWriter.writeValueAsString(new OutboundFrame(destination, data)));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public void sendToClientId(String clientId, String destination, Object data) {
-        sendToSession(sessions.get(clientId), destination, data);
+    /**
+     * Envelope of every outbound frame, written as {@code {"destination":..,"body":..}}.
+     */
+    private record OutboundFrame(String destination, Object body) {
+    }
+
+    /**
+     * A registered service handler and the reader bound to its body type, built once at registration.
+     */
+    private record Route(AbstractServiceHandler<?> handler, ObjectReader reader) {
     }
 }
@@ -0,0 +1,76 @@
+package com.henrique.person.service.io;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Reads the values of a JSON array, or of newline-delimited JSON, one at a time, like the
+ * {@link MappingIterator} it wraps. Input that is not valid JSON, or does not map to the value type,
+ * fails with a {@link PersonFormatException} naming the record, as the CSV and binary readers do.
+ */
+public class JsonRecordReader<T> implements Iterator<T>, Closeable {
+
+    private final MappingIterator<T> values;
+    private long record;
+
+    private JsonRecordReader(MappingIterator<T> values) {
+        this.values = values;
+    }
+
+    public static <T> JsonRecordReader<T> open(ObjectReader reader, InputStream in) throws IOException {
+        try {
+            return new JsonRecordReader<>(reader.readValues(in));
+        } catch (JsonProcessingException e) {
+            throw malformed(e, 1);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return values.hasNext();
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        try {
+            T value = values.next();
+            record++;
+            return value;
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        values.close();
+    }
+
+    /**
+     * The iterator reports parse and mapping errors as runtime exceptions caused by the Jackson one;
+     * anything else, such as the client going away, is not about the input and passes through.
+     */
+    private RuntimeException translate(RuntimeException e) {
+        if (e.getCause() instanceof JsonProcessingException cause) {
+            return malformed(cause, record + 1);
+        }
+        return e;
+    }
+
+    private static PersonFormatException malformed(JsonProcessingException e, long record) {
+        JsonLocation location = e.getLocation();
+        String where = location == null ? "" : " (line " + location.getLineNr() + ", column " + location.getColumnNr() + ")";
+        return new PersonFormatException("JSON record " + record + where + ": " + e.getOriginalMessage(), e);
+    }
+}
@@ -0,0 +1,108 @@
+package com.henrique.person.service.io;
+
+import com.henrique.person.model.dto.PersonDto;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads people written by {@link PersonBinaryWriter}, one record at a time, decoding each payload from
+ * a reused buffer.
+ */
+public class PersonBinaryReader implements Iterator<PersonDto>, Closeable {
+
+    /**
+     * Largest payload accepted, so a corrupt length cannot make the reader allocate without bound.
+     */
+    static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private final DataInputStream in;
+    private final byte[] payload = new byte[MAX_RECORD_SIZE];
+    private long record;
+    private PersonDto next;
+
+    public PersonBinaryReader(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        byte[] magic = new byte[PersonBinaryWriter.MAGIC.length];
+        try {
+            this.in.readFully(magic);
+        } catch (EOFException e) {
+            throw new PersonFormatException("Binary input is too short for its header");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!Arrays.equals(magic, PersonBinaryWriter.MAGIC)) {
+            throw new PersonFormatException("Binary input does not start with PRS1");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRecord();
+        }
+        return next != null;
+    }
+
+    @Override
+    public PersonDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PersonDto person = next;
+        next = null;
+        return person;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private PersonDto readRecord() {
+        try {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            record++;
+            int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+            if (length < 1 + Integer.BYTES || length > MAX_RECORD_SIZE) {
+                throw new PersonFormatException("Binary record " + record + " has invalid length " + length);
+            }
+            in.readFully(payload, 0, length);
+            return decode(ByteBuffer.wrap(payload, 0, length));
+        } catch (EOFException e) {
+            throw new PersonFormatException("Binary input ends inside record " + record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PersonDto decode(ByteBuffer buffer) {
+        int flags = buffer.get();
+        int fixed = 1 + Integer.BYTES
+                + ((flags & PersonBinaryWriter.HAS_ID) != 0 ? Long.BYTES : 0)
+                + ((flags & PersonBinaryWriter.HAS_VERSION) != 0 ? Long.BYTES : 0);
+        if (buffer.limit() < fixed) {
+            throw new PersonFormatException("Binary record " + record + " is shorter than its fields");
+        }
+        Long id = (flags & PersonBinaryWriter.HAS_ID) != 0 ? buffer.getLong() : null;
+        Long version = (flags & PersonBinaryWriter.HAS_VERSION) != 0 ? buffer.getLong() : null;
+        int age = buffer.getInt();
+        String name = (flags & PersonBinaryWriter.HAS_NAME) != 0
+                ? new String(payload, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8)
+                : null;
+        return new PersonDto(id, name, age, version);
+    }
+}
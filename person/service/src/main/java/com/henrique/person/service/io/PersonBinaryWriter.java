@@ -0,0 +1,78 @@
+package com.henrique.person.service.io;
+
+import com.henrique.person.model.dto.PersonDto;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes people in the length-prefixed binary format. The stream starts with the 4-byte magic
+ * {@code PRS1}; then every record is a big-endian {@code int} payload length followed by the payload:
+ *
+ * <pre>
+ * byte   flags       1 = has id, 2 = has version, 4 = has name
+ * long   id          if flagged
+ * long   version     if flagged
+ * int    age
+ * byte[] name        UTF-8, the rest of the payload, if flagged
+ * </pre>
+ *
+ * Records are self-delimiting, so a reader never scans for separators or escapes. Output goes through
+ * a 64 KiB buffer.
+ */
+public class PersonBinaryWriter implements Closeable {
+
+    static final byte[] MAGIC = {'P', 'R', 'S', '1'};
+
+    static final int HAS_ID = 1;
+    static final int HAS_VERSION = 2;
+    static final int HAS_NAME = 4;
+
+    private final DataOutputStream out;
+
+    public PersonBinaryWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.out.write(MAGIC);
+    }
+
+    public void write(PersonDto person) throws IOException {
+        byte[] name = person.getName() == null ? null : person.getName().getBytes(StandardCharsets.UTF_8);
+        int flags = (person.getId() != null ? HAS_ID : 0)
+                | (person.getVersion() != null ? HAS_VERSION : 0)
+                | (name != null ? HAS_NAME : 0);
+        int length = 1
+                + (person.getId() != null ? Long.BYTES : 0)
+                + (person.getVersion() != null ? Long.BYTES : 0)
+                + Integer.BYTES
+                + (name != null ? name.length : 0);
+
+        out.writeInt(length);
+        out.writeByte(flags);
+        if (person.getId() != null) {
+            out.writeLong(person.getId());
+        }
+        if (person.getVersion() != null) {
+            out.writeLong(person.getVersion());
+        }
+        out.writeInt(person.getAge());
+        if (name != null) {
+            out.write(name);
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flushes the buffer and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,209 @@
+package com.henrique.person.service.io;
+
+import com.henrique.person.model.dto.PersonDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads people from RFC 4180 CSV, one record at a time, so input of any size is read in constant memory.
+ *
+ * <p>The first record is the header and names the columns, in any order: {@code name} and {@code age}
+ * are required, {@code id} and {@code version} optional, others are ignored. Fields may be quoted, with
+ * {@code ""} for a quote, and may then hold commas and line breaks. Blank lines are skipped.
+ */
+public class PersonCsvReader implements Iterator<PersonDto>, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Longest record accepted, in characters, so an unterminated quote or a huge line cannot make the
+     * reader buffer without bound.
+     */
+    static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+
+    private final int idColumn;
+    private final int nameColumn;
+    private final int ageColumn;
+    private final int versionColumn;
+
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private PersonDto next;
+
+    public PersonCsvReader(InputStream in) {
+        this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        if (peek() == '\uFEFF') {
+            // byte order mark, as spreadsheet exports tend to start with
+            read();
+        }
+        if (!readRecord()) {
+            throw new PersonFormatException("CSV input has no header");
+        }
+        List<String> header = fields.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+        this.idColumn = header.indexOf("id");
+        this.nameColumn = header.indexOf("name");
+        this.ageColumn = header.indexOf("age");
+        this.versionColumn = header.indexOf("version");
+        if (nameColumn < 0 || ageColumn < 0) {
+            throw new PersonFormatException("CSV header needs name and age columns, got " + fields);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && readRecord()) {
+            next = toPerson();
+        }
+        return next != null;
+    }
+
+    @Override
+    public PersonDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PersonDto person = next;
+        next = null;
+        return person;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private PersonDto toPerson() {
+        try {
+            return new PersonDto(
+                    optionalLong(idColumn),
+                    field(nameColumn),
+                    Integer.parseInt(field(ageColumn).trim()),
+                    optionalLong(versionColumn));
+        } catch (NumberFormatException e) {
+            throw new PersonFormatException("CSV record on line " + recordLine + ": " + e.getMessage(), e);
+        }
+    }
+
+    private String field(int column) {
+        if (column >= fields.size()) {
+            throw new PersonFormatException("CSV record on line " + recordLine + " has " + fields.size() + " fields");
+        }
+        return fields.get(column);
+    }
+
+    private Long optionalLong(int column) {
+        if (column < 0 || column >= fields.size() || fields.get(column).isBlank()) {
+            return null;
+        }
+        return Long.parseLong(fields.get(column).trim());
+    }
+
+    /**
+     * Reads the next non-blank record into {@link #fields}; {@code false} at the end of the input.
+     */
+    private boolean readRecord() {
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean inQuotes = false;
+        long start = line;
+        int size = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            if (++size > MAX_RECORD_SIZE) {
+                throw new PersonFormatException("CSV record on line " + start + " is longer than " + MAX_RECORD_SIZE + " characters");
+            }
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (fields.isEmpty() && field.isEmpty() && !quoted) {
+                    start = ++line;
+                    size = 0;
+                    continue;
+                }
+                fields.add(field.toString());
+                recordLine = line++;
+                return true;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (inQuotes) {
+            throw new PersonFormatException("CSV input ends inside a quoted field on line " + line);
+        }
+        if (fields.isEmpty() && field.isEmpty() && !quoted) {
+            return false;
+        }
+        fields.add(field.toString());
+        recordLine = line;
+        return true;
+    }
+
+    private int read() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() {
+        try {
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.henrique.person.service.io;
+
+import com.henrique.person.model.dto.PersonDto;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes people as CSV with an {@code id,name,age,version} header, readable by {@link PersonCsvReader}.
+ * Output goes through a 64 KiB buffer, so the underlying stream sees large chunks rather than one write
+ * per field. Names are quoted only when they hold a comma, quote or line break.
+ */
+public class PersonCsvWriter implements Closeable {
+
+    static final String HEADER = "id,name,age,version";
+
+    private final Writer writer;
+
+    public PersonCsvWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    public void write(PersonDto person) throws IOException {
+        if (person.getId() != null) {
+            writer.write(Long.toString(person.getId()));
+        }
+        writer.write(',');
+        writeName(person.getName());
+        writer.write(',');
+        writer.write(Integer.toString(person.getAge()));
+        writer.write(',');
+        if (person.getVersion() != null) {
+            writer.write(Long.toString(person.getVersion()));
+        }
+        writer.write('\n');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Flushes the buffer and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeName(String name) throws IOException {
+        if (name == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < name.length() && !quote; i++) {
+            char c = name.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(name);
+            return;
+        }
+        writer.write('"');
+        writer.write(name.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
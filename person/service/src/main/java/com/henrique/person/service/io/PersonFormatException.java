@@ -0,0 +1,36 @@
+package com.henrique.person.service.io;
+
+/**
+ * Import input that does not follow its format; the message says where.
+ */
+public class PersonFormatException extends IllegalArgumentException {
+
+    private final long committed;
+
+    public PersonFormatException(String message) {
+        this(message, null, 0);
+    }
+
+    public PersonFormatException(String message, Throwable cause) {
+        this(message, cause, 0);
+    }
+
+    private PersonFormatException(String message, Throwable cause, long committed) {
+        super(message, cause);
+        this.committed = committed;
+    }
+
+    /**
+     * The same error, noting that {@code committed} people had already been imported when it was found.
+     */
+    public PersonFormatException withCommitted(long committed) {
+        return new PersonFormatException(getMessage(), this, committed);
+    }
+
+    /**
+     * People imported, in committed chunks, before the malformed input was reached.
+     */
+    public long getCommitted() {
+        return committed;
+    }
+}
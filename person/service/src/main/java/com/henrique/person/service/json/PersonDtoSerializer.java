@@ -0,0 +1,49 @@
+package com.henrique.person.service.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.henrique.person.model.dto.PersonDto;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link PersonDto} straight to the generator, with field names encoded once up front. Skips
+ * the bean serializer's per-property reflection and null checks; the output is the same
+ * {@code {"id":..,"name":..,"age":..,"version":..}} the default mapping produces, nulls included.
+ */
+public class PersonDtoSerializer extends StdSerializer<PersonDto> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    public PersonDtoSerializer() {
+        super(PersonDto.class);
+    }
+
+    @Override
+    public void serialize(PersonDto person, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(person, 4);
+        gen.writeFieldName(ID);
+        if (person.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(person.getId());
+        }
+        gen.writeFieldName(NAME);
+        gen.writeString(person.getName());
+        gen.writeFieldName(AGE);
+        gen.writeNumber(person.getAge());
+        gen.writeFieldName(VERSION);
+        if (person.getVersion() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(person.getVersion());
+        }
+        gen.writeEndObject();
+    }
+}
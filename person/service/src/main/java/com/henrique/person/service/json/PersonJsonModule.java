@@ -0,0 +1,16 @@
+package com.henrique.person.service.json;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.henrique.person.model.dto.PersonDto;
+
+/**
+ * Jackson module with the hand-written {@link PersonDtoSerializer}. Registered as a bean, Spring Boot
+ * adds it to the application's {@code ObjectMapper}, so REST responses and WebSocket frames both use it.
+ */
+public class PersonJsonModule extends SimpleModule {
+
+    public PersonJsonModule() {
+        super("person");
+        addSerializer(PersonDto.class, new PersonDtoSerializer());
+    }
+}
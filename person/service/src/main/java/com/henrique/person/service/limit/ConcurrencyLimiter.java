@@ -0,0 +1,104 @@
+package com.henrique.person.service.limit;
+
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load shedding: admits at most {@code limit} requests at a time and rejects the rest straight away,
+ * before they queue for a database connection. The limit adapts to the latency of the admitted
+ * requests, which in this service is mostly database time: above {@code person.limits.shedding.target-latency}
+ * it is multiplied by the backoff factor (at most once per target latency), below it grows by one
+ * for every {@code limit} requests completed while at least half of it was in use.
+ *
+ * <p>Every admitted request must be {@linkplain #release released}, whether it is sampled or not.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    /**
+     * Passed to {@link #release} for requests whose duration says nothing about the load, such as bulk imports.
+     */
+    public static final long NO_SAMPLE = -1;
+
+    private final boolean enabled;
+    private final long targetLatencyNanos;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoff;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicLong lastDecrease;
+    private final Counter rejected;
+
+    public ConcurrencyLimiter(ServiceProperties properties, MeterRegistry meterRegistry) {
+        ServiceProperties.Shedding shedding = properties.getLimits().getShedding();
+        this.enabled = shedding.isEnabled();
+        this.targetLatencyNanos = shedding.getTargetLatency().toNanos();
+        this.minLimit = Math.max(1, shedding.getMinLimit());
+        this.maxLimit = Math.max(minLimit, shedding.getMaxLimit());
+        this.backoff = Math.min(0.99, Math.max(0.1, shedding.getBackoff()));
+        this.limit = new AtomicInteger(Math.min(maxLimit, Math.max(minLimit, shedding.getInitialLimit())));
+        this.lastDecrease = new AtomicLong(System.nanoTime() - targetLatencyNanos);
+
+        this.rejected = meterRegistry.counter("person.limits.rejected", "limit", "concurrency", "reason", "overload");
+        Gauge.builder("person.limits.concurrency", limit, AtomicInteger::get)
+                .description("Adaptive limit of concurrent requests")
+                .register(meterRegistry);
+        Gauge.builder("person.limits.in-flight", inFlight, AtomicInteger::get)
+                .description("Requests admitted and not yet released")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits the request if fewer than the limit are in flight.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (enabled && current >= limit.get()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request and adjusts the limit to its latency, unless it is {@link #NO_SAMPLE}.
+     */
+    public void release(long latencyNanos) {
+        int wasInFlight = inFlight.getAndDecrement();
+        if (latencyNanos < 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (latencyNanos > targetLatencyNanos) {
+            long last = lastDecrease.get();
+            if (now - last >= targetLatencyNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoff)));
+                successes.set(0);
+            }
+        } else if (wasInFlight * 2 >= limit.get() && successes.incrementAndGet() >= limit.get()) {
+            successes.set(0);
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.henrique.person.service.limit;
+
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.handler.SessionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission of new WebSocket sessions: refuses the handshake with {@code 503} once the node holds
+ * {@code person.limits.websocket.max-connections} sessions, and with {@code 429} when the client opens
+ * sessions faster than {@code person.limits.websocket.handshake}. Clients are told apart by the
+ * authenticated user, or by their address; the client UUID is chosen by the client and cannot be.
+ */
+@Component
+public class HandshakeAdmission implements HandshakeInterceptor {
+
+    static final String LIMIT = "ws.handshake";
+
+    private final RateLimiter rateLimiter;
+    private final SessionRegistry sessionRegistry;
+    private final ServiceProperties.Rate rate;
+    private final int maxConnections;
+    private final Counter full;
+
+    public HandshakeAdmission(RateLimiter rateLimiter, SessionRegistry sessionRegistry, ServiceProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.sessionRegistry = sessionRegistry;
+        this.rate = properties.getLimits().getWebsocket().getHandshake();
+        this.maxConnections = properties.getLimits().getWebsocket().getMaxConnections();
+        this.full = meterRegistry.counter("person.limits.rejected", "limit", "ws.connections", "reason", "overload");
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler,
+                                   Map<String, Object> attributes) {
+        if (maxConnections > 0 && sessionRegistry.size() >= maxConnections) {
+            full.increment();
+            return refuse(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+        }
+        long wait = rateLimiter.tryAcquire(LIMIT, rate, client(request), 1);
+        if (wait > 0) {
+            return refuse(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait) + 1);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler,
+                               Exception exception) {
+        // Nothing to do after handshake
+    }
+
+    private static String client(ServerHttpRequest request) {
+        Principal principal = request.getPrincipal();
+        if (principal != null) {
+            return principal.getName();
+        }
+        return request.getRemoteAddress() == null ? "" : request.getRemoteAddress().getHostString();
+    }
+
+    private static boolean refuse(ServerHttpResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatusCode(status);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return false;
+    }
+}
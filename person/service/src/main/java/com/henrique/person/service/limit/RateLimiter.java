@@ -0,0 +1,58 @@
+package com.henrique.person.service.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-client rate limits: one {@link TokenBucket} per limit and client, created on first use and
+ * dropped after {@code person.limits.idle-timeout} without use. Callers name the limit (an endpoint, a
+ * WebSocket destination) and pass its {@link ServiceProperties.Rate}; limit names become metric tags,
+ * so they must come from configuration or registered routes, never from the client.
+ */
+@Component
+public class RateLimiter {
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Cache<Key, TokenBucket> buckets;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public RateLimiter(ServiceProperties properties, MeterRegistry meterRegistry) {
+        ServiceProperties.Limits limits = properties.getLimits();
+        this.enabled = limits.isEnabled();
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(limits.getMaxClients())
+                .expireAfterAccess(limits.getIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Takes {@code permits} from the client's bucket of {@code limit}. Returns 0 when they were taken,
+     * otherwise the nanoseconds until they would be, as a hint for {@code Retry-After}.
+     */
+    public long tryAcquire(String limit, ServiceProperties.Rate rate, String client, int permits) {
+        if (!enabled || rate == null || rate.getPermitsPerSecond() <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(new Key(limit, client),
+                key -> new TokenBucket(rate.getPermitsPerSecond(), rate.getBurst(), now));
+        long wait = bucket.tryAcquire(permits, now);
+        if (wait > 0) {
+            rejected.computeIfAbsent(limit, name -> meterRegistry.counter("person.limits.rejected", "limit", name, "reason", "rate"))
+                    .increment();
+        }
+        return wait;
+    }
+
+    private record Key(String limit, String client) {
+    }
+}
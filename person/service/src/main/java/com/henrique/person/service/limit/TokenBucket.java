@@ -0,0 +1,44 @@
+package com.henrique.person.service.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as a single {@link AtomicLong}, in the form of the generic cell rate algorithm:
+ * instead of a token count and a refill timestamp it stores the time at which the bucket will be full
+ * again. Taking {@code n} permits moves that time {@code n} intervals ahead, and is refused when it
+ * would end up more than {@code burst} intervals past now. One compare-and-set per call, no lock and no
+ * refill task.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes {@code permits} if the bucket holds them. Returns 0 when they were taken, otherwise how
+     * long until they would be available; nothing is taken then.
+     */
+    long tryAcquire(int permits, long nowNanos) {
+        long cost = intervalNanos * permits;
+        while (true) {
+            long current = fullAt.get();
+            // nanoTime may be negative, so times are compared by their difference
+            long start = current - nowNanos < 0 ? nowNanos : current;
+            long next = start + cost;
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.henrique.person.service.relay;
+
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.handler.WebSocketExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * This node's side of the {@link MessageRelay}.
+ *
+ * <p>Outgoing messages are queued and published by a single flush task: messages queued while a
+ * publish is in flight go out together in the next one (up to {@code max-batch}), so a burst costs
+ * a few relay round trips instead of one per message, without adding latency when traffic is low.
+ *
+ * <p>Without a relay the node runs alone: nothing is queued or published, and nothing is received.
+ */
+public class ClusterRelay implements DisposableBean {
+
+    private final MessageRelay relay;
+    private final Executor executor;
+    private final String nodeId;
+    private final int maxBatch;
+
+    private final Queue<RelayMessage> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private final Counter published;
+    private final Counter received;
+    private final Counter failed;
+    private final DistributionSummary batchSize;
+
+    /**
+     * @param relay the transport to the other nodes, or {@code null} on a single node
+     */
+    public ClusterRelay(MessageRelay relay, ServiceProperties properties, WebSocketExecutors executors, MeterRegistry meterRegistry) {
+        ServiceProperties.Relay config = properties.getWebsocket().getRelay();
+        this.relay = relay;
+        this.executor = executors.getDispatchers();
+        this.nodeId = config.getNodeId() == null || config.getNodeId().isBlank() ? UUID.randomUUID().toString() : config.getNodeId();
+        this.maxBatch = Math.max(1, config.getMaxBatch());
+
+        this.published = meterRegistry.counter("person.ws.relay.messages", "direction", "out");
+        this.received = meterRegistry.counter("person.ws.relay.messages", "direction", "in");
+        this.failed = meterRegistry.counter("person.ws.relay.failed");
+        this.batchSize = DistributionSummary.builder("person.ws.relay.batch")
+                .description("Messages per relay publish")
+                .register(meterRegistry);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Queues the message for the other nodes.
+     */
+    public void publish(RelayMessage message) {
+        if (relay == null) {
+            return;
+        }
+        pending.add(message);
+        if (flushing.compareAndSet(false, true)) {
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Hands the messages published by other nodes to {@code receiver}, one at a time.
+     */
+    public void onReceive(Consumer<RelayMessage> receiver) {
+        if (relay == null) {
+            return;
+        }
+        relay.subscribe(nodeId, batch -> {
+            received.increment(batch.size());
+            batch.forEach(receiver);
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (relay != null) {
+            relay.unsubscribe(nodeId);
+        }
+    }
+
+    private void flush() {
+        while (true) {
+            List<RelayMessage> batch = new ArrayList<>();
+            RelayMessage message;
+            while (batch.size() < maxBatch && (message = pending.poll()) != null) {
+                batch.add(message);
+            }
+
+            if (batch.isEmpty()) {
+                flushing.set(false);
+                // a message may have been queued after the poll but before the flag was cleared
+                if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                relay.publish(nodeId, batch);
+                published.increment(batch.size());
+                batchSize.record(batch.size());
+            } catch (RuntimeException e) {
+                failed.increment(batch.size());
+            }
+        }
+    }
+}
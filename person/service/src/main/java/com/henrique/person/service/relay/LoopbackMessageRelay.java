@@ -0,0 +1,33 @@
+package com.henrique.person.service.relay;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory relay between nodes of the same JVM, which lets multi-node routing be tested without a broker.
+ */
+public class LoopbackMessageRelay implements MessageRelay {
+
+    private final Map<String, Consumer<List<RelayMessage>>> receivers = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String origin, List<RelayMessage> batch) {
+        receivers.forEach((nodeId, receiver) -> {
+            if (!nodeId.equals(origin)) {
+                receiver.accept(batch);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(String nodeId, Consumer<List<RelayMessage>> receiver) {
+        receivers.put(nodeId, receiver);
+    }
+
+    @Override
+    public void unsubscribe(String nodeId) {
+        receivers.remove(nodeId);
+    }
+}
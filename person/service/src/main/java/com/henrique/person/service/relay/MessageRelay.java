@@ -0,0 +1,24 @@
+package com.henrique.person.service.relay;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries WebSocket messages between the nodes of a cluster, so a message for a client or topic
+ * reaches the sessions held by every node. Implementations plug in the transport (a broker, Redis
+ * pub/sub, ...); {@link LoopbackMessageRelay} connects nodes living in the same JVM.
+ */
+public interface MessageRelay {
+
+    /**
+     * Delivers a batch published by {@code origin} to every other subscribed node.
+     */
+    void publish(String origin, List<RelayMessage> batch);
+
+    /**
+     * Starts delivering the batches published by other nodes to {@code receiver}.
+     */
+    void subscribe(String nodeId, Consumer<List<RelayMessage>> receiver);
+
+    void unsubscribe(String nodeId);
+}
@@ -0,0 +1,20 @@
+package com.henrique.person.service.relay;
+
+/**
+ * A message relayed between nodes, addressed either to a client UUID or to a broadcast topic. The
+ * payload is the already encoded WebSocket frame, so receiving nodes never serialize it again.
+ */
+public record RelayMessage(Target target, String key, String destination, String payload) {
+
+    public enum Target {
+        CLIENT, TOPIC
+    }
+
+    public static RelayMessage toClient(String clientUuid, String destination, String payload) {
+        return new RelayMessage(Target.CLIENT, clientUuid, destination, payload);
+    }
+
+    public static RelayMessage toTopic(String topic, String payload) {
+        return new RelayMessage(Target.TOPIC, topic, topic, payload);
+    }
+}
@@ -0,0 +1,122 @@
+package com.henrique.person.service.stats;
+
+/**
+ * Map from person id to age held in two parallel primitive columns, {@code long[] ids} and
+ * {@code int[] ages}, with linear probing. Removal shifts the following entries back instead of
+ * leaving tombstones, so lookups never degrade with churn. Id {@code 0} marks a free slot and cannot be
+ * stored. Not thread safe.
+ */
+final class AgeIndex {
+
+    static final int ABSENT = Integer.MIN_VALUE;
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private long[] ids;
+    private int[] ages;
+    private int shift;
+    private int mask;
+    private int size;
+
+    AgeIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 4 / 3 + 1) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Sets the age of {@code id}, returning its previous age or {@link #ABSENT}.
+     */
+    int put(long id, int age) {
+        if (id == 0) {
+            throw new IllegalArgumentException("id 0 cannot be indexed");
+        }
+        int i = slot(id);
+        while (ids[i] != 0) {
+            if (ids[i] == id) {
+                int previous = ages[i];
+                ages[i] = age;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        ids[i] = id;
+        ages[i] = age;
+        if (++size > ids.length / 4 * 3) {
+            grow();
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Removes {@code id}, returning its age or {@link #ABSENT} if it was not indexed.
+     */
+    int remove(long id) {
+        if (id == 0) {
+            return ABSENT;
+        }
+        int i = slot(id);
+        while (ids[i] != 0) {
+            if (ids[i] == id) {
+                int previous = ages[i];
+                shiftBack(i);
+                size--;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    private void shiftBack(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (ids[i] == 0) {
+                break;
+            }
+            // the entry at i may fill the hole only if the hole lies between its home slot and i
+            int home = slot(ids[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                ids[hole] = ids[i];
+                ages[hole] = ages[i];
+                hole = i;
+            }
+        }
+        ids[hole] = 0;
+        ages[hole] = 0;
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        int[] oldAges = ages;
+        allocate(oldIds.length * 2);
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != 0) {
+                int slot = slot(oldIds[i]);
+                while (ids[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                ids[slot] = oldIds[i];
+                ages[slot] = oldAges[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        ages = new int[capacity];
+        mask = capacity - 1;
+        shift = Long.numberOfLeadingZeros(capacity - 1);
+        size = 0;
+    }
+
+    private int slot(long id) {
+        // Fibonacci hashing: the high bits of the product spread sequential ids over the table
+        return (int) ((id * GOLDEN) >>> shift);
+    }
+}
@@ -0,0 +1,216 @@
+package com.henrique.person.service.stats;
+
+import com.henrique.person.model.dto.AgeBucketDto;
+import com.henrique.person.model.dto.AgeStatsDto;
+import com.henrique.person.model.dto.PersonChangeDto;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonChangeRepository;
+import com.henrique.person.service.PersonService;
+import com.henrique.person.service.changes.PersonChangeRelay;
+import com.henrique.person.service.changes.PersonChangeSubscriber;
+import com.henrique.person.service.config.ServiceProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Age statistics answered from memory: an {@link AgeIndex} of every person's age plus a
+ * {@code long[]} histogram with one slot per age, so queries cost at most one pass over
+ * {@code person.stats.max-age} slots, however many people there are.
+ *
+ * <p>Once the application is ready, the last change offset is noted and the table is read with one
+ * streaming scan; then the aggregate follows the change outbox from that offset. Both reads share one
+ * read-only transaction, so they go to the same database, and a replica that has the offset also has
+ * every row change up to it. Applying a change is
+ * idempotent (set or remove the age of one id), so changes that the scan already saw are harmless, and
+ * every node stays in step with the writes of all nodes. Until the scan completes {@link #isReady()}
+ * is {@code false}.
+ */
+@Component
+public class AgeStatistics implements PersonChangeSubscriber {
+
+    private static final Logger log = LoggerFactory.getLogger(AgeStatistics.class);
+
+    private final PersonService service;
+    private final PersonChangeRepository changeRepository;
+    private final PersonChangeRelay changeRelay;
+    private final TransactionTemplate snapshot;
+    private final boolean enabled;
+    private final int maxAge;
+
+    private final AgeIndex ages = new AgeIndex(1024);
+    private final long[] histogram;
+    private long sum;
+    private volatile boolean ready;
+
+    public AgeStatistics(PersonService service, PersonChangeRepository changeRepository, PersonChangeRelay changeRelay,
+                         PlatformTransactionManager transactionManager, ServiceProperties properties) {
+        this.service = service;
+        this.changeRepository = changeRepository;
+        this.changeRelay = changeRelay;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.enabled = properties.getStats().isEnabled();
+        this.maxAge = Math.max(0, properties.getStats().getMaxAge());
+        this.histogram = new long[maxAge + 1];
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads the aggregate off the startup thread, so a large table does not hold up startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(this::load, "age-stats-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void load() {
+        try {
+            long started = System.nanoTime();
+            long offset = snapshot.execute(status -> {
+                long last = changeRepository.findLastId();
+                service.streamAll(person -> set(person.getId(), person.getAge()));
+                return last;
+            });
+            changeRelay.subscribe(this, offset);
+            ready = true;
+            log.info("Age statistics loaded {} people in {} ms", count(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            log.error("Age statistics could not be loaded", e);
+        }
+    }
+
+    @Override
+    public boolean deliver(List<PersonChangeDto> changes) {
+        synchronized (this) {
+            for (PersonChangeDto change : changes) {
+                if (change.getType() == PersonChange.Type.DELETED) {
+                    unset(change.getPersonId());
+                } else if (change.getPerson() != null) {
+                    set(change.getPersonId(), change.getPerson().getAge());
+                }
+            }
+        }
+        return true;
+    }
+
+    public synchronized long count() {
+        return ages.size();
+    }
+
+    /**
+     * People aged {@code minAge} to {@code maxAge}, both inclusive and clamped to the histogram.
+     */
+    public synchronized long count(int minAge, int maxAge) {
+        long count = 0;
+        for (int age = Math.max(0, minAge); age <= Math.min(this.maxAge, maxAge); age++) {
+            count += histogram[age];
+        }
+        return count;
+    }
+
+    /**
+     * Counts per age range of {@code width} years, from 0 up to the range of the oldest person.
+     */
+    public synchronized List<AgeBucketDto> histogram(int width) {
+        if (ages.size() == 0) {
+            return List.of();
+        }
+        int step = Math.max(1, width);
+        int oldest = oldest();
+        List<AgeBucketDto> buckets = new ArrayList<>();
+        for (int from = 0; from <= oldest; from += step) {
+            int to = Math.min(this.maxAge, from + step - 1);
+            long count = 0;
+            for (int age = from; age <= to; age++) {
+                count += histogram[age];
+            }
+            buckets.add(new AgeBucketDto(from, to, count));
+        }
+        return buckets;
+    }
+
+    /**
+     * The nearest-rank {@code percentile} (0 to 100) of the ages, or {@code null} when there is nobody.
+     */
+    public synchronized Integer percentile(double percentile) {
+        long total = ages.size();
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for (int age = 0; age <= maxAge; age++) {
+            seen += histogram[age];
+            if (seen >= rank) {
+                return age;
+            }
+        }
+        return maxAge;
+    }
+
+    public synchronized AgeStatsDto summary() {
+        long total = ages.size();
+        if (total == 0) {
+            return new AgeStatsDto(0, null, null, null, null, null, null);
+        }
+        int youngest = 0;
+        while (histogram[youngest] == 0) {
+            youngest++;
+        }
+        return new AgeStatsDto(total, (double) sum / total, youngest, oldest(),
+                percentile(50), percentile(90), percentile(99));
+    }
+
+    private synchronized void set(Long id, int age) {
+        if (id == null) {
+            return;
+        }
+        int previous = ages.put(id, age);
+        if (previous != AgeIndex.ABSENT) {
+            histogram[slot(previous)]--;
+            sum -= previous;
+        }
+        histogram[slot(age)]++;
+        sum += age;
+    }
+
+    private void unset(Long id) {
+        if (id == null) {
+            return;
+        }
+        int previous = ages.remove(id);
+        if (previous != AgeIndex.ABSENT) {
+            histogram[slot(previous)]--;
+            sum -= previous;
+        }
+    }
+
+    private int oldest() {
+        int oldest = maxAge;
+        while (oldest > 0 && histogram[oldest] == 0) {
+            oldest--;
+        }
+        return oldest;
+    }
+
+    private int slot(int age) {
+        return Math.min(maxAge, Math.max(0, age));
+    }
+}
@@ -0,0 +1,182 @@
+package com.henrique.person.service;
+
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.model.entity.Person;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonChangeRepository;
+import com.henrique.person.repository.PersonRepository;
+import com.henrique.person.service.cache.PersonCache;
+import com.henrique.person.service.changes.PersonChangeLog;
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.io.PersonFormatException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PersonBatchServiceTest {
+
+    private PersonRepository repository;
+    private PersonChangeRepository changeRepository;
+    private PlatformTransactionManager transactionManager;
+    private PersonCache cache;
+    private PersonBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(PersonRepository.class);
+        changeRepository = Mockito.mock(PersonChangeRepository.class);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        ServiceProperties properties = new ServiceProperties();
+        properties.getBatch().setChunkSize(2);
+        cache = new PersonCache(properties, new SimpleMeterRegistry());
+        service = new PersonBatchService(repository, cache, new PersonChangeLog(changeRepository), transactionManager, properties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createAll_shouldWriteOneTransactionPerChunkAndIgnoreIds() {
+        long created = service.createAll(List.of(
+                new PersonDto(9L, "A", 1), new PersonDto(null, "B", 2), new PersonDto(null, "C", 3)
+        ).iterator());
+
+        assertThat(created).isEqualTo(3);
+        ArgumentCaptor<Iterable<Person>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository, times(2)).saveAll(captor.capture());
+        assertThat(captor.getAllValues().get(0)).extracting(Person::getId).containsOnlyNulls();
+        assertThat(captor.getAllValues().get(1)).extracting(Person::getName).containsExactly("C");
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void updateAll_shouldOnlyTouchExistingRows() {
+        Person existing = new Person(1L, "Old", 10);
+        when(repository.findAllById(any())).thenReturn(List.of(existing));
+
+        long updated = service.updateAll(List.of(new PersonDto(1L, "New", 11), new PersonDto(2L, "Gone", 12)).iterator());
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(existing.getName()).isEqualTo("New");
+        assertThat(existing.getAge()).isEqualTo(11);
+    }
+
+    @Test
+    void updateAll_shouldSkipRowsAtAnotherVersion() {
+        Person current = new Person(1L, "Current", 10);
+        current.setVersion(3);
+        when(repository.findAllById(any())).thenReturn(List.of(current));
+
+        long updated = service.updateAll(List.of(new PersonDto(1L, "Stale", 11, 2L)).iterator());
+
+        assertThat(updated).isZero();
+        assertThat(current.getName()).isEqualTo("Current");
+        verifyNoInteractions(changeRepository);
+    }
+
+    @Test
+    void saveAll_shouldRefuseUpdatesAtAnotherVersion() {
+        Person current = new Person(1L, "Current", 10);
+        current.setVersion(3);
+        Person matching = new Person(2L, "Old", 20);
+        matching.setVersion(5);
+        when(repository.findAllById(any())).thenReturn(List.of(current, matching));
+        List<Integer> stale = new ArrayList<>();
+
+        List<PersonDto> saved = service.saveAll(List.of(
+                new PersonDto(1L, "Stale", 11, 2L), new PersonDto(2L, "New", 21, 5L)), stale::add);
+
+        assertThat(stale).containsExactly(0);
+        assertThat(saved.get(0)).isNull();
+        assertThat(saved.get(1).getName()).isEqualTo("New");
+        assertThat(current.getName()).isEqualTo("Current");
+    }
+
+    @Test
+    void saveAll_shouldRefreshTheCacheForChunksCommittedBeforeAFailure() {
+        cache.put(new PersonDto(1L, "Old", 10, 0L));
+        when(repository.findAllById(any()))
+                .thenReturn(List.of(new Person(1L, "Old", 10)))
+                .thenThrow(new IllegalStateException("database gone"));
+
+        assertThatThrownBy(() -> service.saveAll(List.of(
+                new PersonDto(1L, "New", 11), new PersonDto(null, "A", 1), new PersonDto(2L, "B", 2))))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get(1L, id -> Optional.empty())).get().extracting(PersonDto::getName).isEqualTo("New");
+    }
+
+    @Test
+    void malformedInput_shouldReportThePeopleAlreadyCommitted() {
+        Iterator<PersonDto> input = new Iterator<>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public PersonDto next() {
+                if (++read > 3) {
+                    throw new PersonFormatException("record " + read);
+                }
+                return new PersonDto(null, "P" + read, read);
+            }
+        };
+
+        assertThatThrownBy(() -> service.createAll(input))
+                .isInstanceOfSatisfying(PersonFormatException.class, e -> {
+                    assertThat(e.getMessage()).isEqualTo("record 4");
+                    assertThat(e.getCommitted()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void deleteAll_shouldDeleteByChunk() {
+        when(repository.lockExistingIds(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.deleteByIdIn(any())).thenReturn(2, 1);
+
+        long deleted = service.deleteAll(Arrays.asList(1L, 2L, 3L).iterator());
+
+        assertThat(deleted).isEqualTo(3);
+        verify(repository).deleteByIdIn(List.of(1L, 2L));
+        verify(repository).deleteByIdIn(List.of(3L));
+    }
+
+    @Test
+    void deleteExisting_shouldReturnTheIdsThatWereDeleted() {
+        when(repository.lockExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L));
+        when(repository.lockExistingIds(List.of(3L))).thenReturn(List.of(3L));
+
+        assertThat(service.deleteExisting(List.of(1L, 2L, 3L))).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteAll_shouldOnlyRecordIdsThatExisted() {
+        when(repository.lockExistingIds(List.of(1L, 2L))).thenReturn(List.of(2L));
+        when(repository.lockExistingIds(List.of(3L))).thenReturn(List.of());
+        when(repository.deleteByIdIn(List.of(2L))).thenReturn(1);
+
+        long deleted = service.deleteAll(Arrays.asList(1L, 2L, 3L).iterator());
+
+        assertThat(deleted).isEqualTo(1);
+        verify(repository, never()).deleteByIdIn(List.of(3L));
+        ArgumentCaptor<Iterable<PersonChange>> recorded = ArgumentCaptor.forClass(Iterable.class);
+        verify(changeRepository).saveAll(recorded.capture());
+        assertThat(recorded.getValue()).extracting(PersonChange::getPersonId).containsExactly(2L);
+    }
+}
@@ -2,29 +2,48 @@ package com.henrique.person.service;
 
 import com.henrique.person.model.dto.PersonDto;
 import com.henrique.person.model.entity.Person;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonChangeRepository;
 import com.henrique.person.repository.PersonRepository;
+import com.henrique.person.service.cache.PersonCache;
+import com.henrique.person.service.changes.PersonChangeLog;
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class PersonServiceTest {
 
     private PersonRepository repository;
+    private PersonChangeRepository changeRepository;
+    private PlatformTransactionManager transactionManager;
     private PersonService service;
 
     @BeforeEach
     void setUp() {
         repository = Mockito.mock(PersonRepository.class);
-        service = new PersonService(repository);
+        changeRepository = Mockito.mock(PersonChangeRepository.class);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        service = new PersonService(repository, new PersonCache(new ServiceProperties(), new SimpleMeterRegistry()),
+                new PersonChangeLog(changeRepository), transactionManager);
     }
 
     @Test
@@ -46,42 +65,124 @@ class PersonServiceTest {
     }
 
     @Test
-    void update_shouldSaveWithGivenId() {
-        when(repository.save(any(Person.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        PersonDto updated = service.update(new PersonDto(2L, "Bob", 40));
-        assertThat(updated.getId()).isEqualTo(2L);
-        assertThat(updated.getName()).isEqualTo("Bob");
-        verify(repository).save(any(Person.class));
+    void update_withoutVersion_shouldUpdateInPlaceAndReadBackVersion() {
+        when(repository.updateNameAndAge(2L, "Bob", 40)).thenReturn(1);
+        when(repository.findDtoById(2L)).thenReturn(Optional.of(new PersonDto(2L, "Bob", 40, 3L)));
+        Optional<PersonDto> updated = service.update(new PersonDto(2L, "Bob", 40));
+        assertThat(updated).map(PersonDto::getVersion).contains(3L);
+        verify(repository, never()).save(any(Person.class));
     }
 
     @Test
-    void delete_byDto_shouldDelegate() {
-        service.delete(new PersonDto(3L, "Carol", 20));
-        verify(repository).delete(any(Person.class));
+    void update_withVersion_shouldNotReadTheRow() {
+        when(repository.updateNameAndAgeIfVersion(2L, 3L, "Bob", 41)).thenReturn(1);
+        Optional<PersonDto> updated = service.update(new PersonDto(2L, "Bob", 41, 3L));
+        assertThat(updated).map(PersonDto::getVersion).contains(4L);
+        verify(repository, never()).findDtoById(any());
+        verify(repository, never()).existsById(any());
+    }
+
+    @Test
+    void update_withStaleVersion_shouldFail() {
+        when(repository.existsById(2L)).thenReturn(true);
+        assertThatThrownBy(() -> service.update(new PersonDto(2L, "Bob", 41, 1L)))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verifyNoInteractions(changeRepository);
+    }
+
+    @Test
+    void update_ofMissingPerson_shouldBeEmpty() {
+        assertThat(service.update(new PersonDto(2L, "Bob", 41))).isEmpty();
+        assertThat(service.update(new PersonDto(2L, "Bob", 41, 1L))).isEmpty();
+    }
+
+    @Test
+    void delete_byDto_shouldDeleteIfVersionMatches() {
+        when(repository.deleteIfVersion(3L, 5L)).thenReturn(1);
+        service.delete(new PersonDto(3L, "Carol", 20, 5L));
+        verify(repository).deleteIfVersion(3L, 5L);
+    }
+
+    @Test
+    void delete_withVersionOfMissingId_shouldReturnFalse() {
+        assertThat(service.delete(3L, 4L)).isFalse();
+        verifyNoInteractions(changeRepository);
+    }
+
+    @Test
+    void delete_withStaleVersion_shouldFail() {
+        when(repository.existsById(3L)).thenReturn(true);
+        assertThatThrownBy(() -> service.delete(3L, 4L)).isInstanceOf(OptimisticLockingFailureException.class);
+        verifyNoInteractions(changeRepository);
     }
 
     @Test
     void getById_shouldMapToDto() {
-        when(repository.findById(10L)).thenReturn(Optional.of(new Person(10L, "Dan", 50)));
+        when(repository.findDtoById(10L)).thenReturn(Optional.of(new PersonDto(10L, "Dan", 50)));
         Optional<PersonDto> dto = service.getById(10L);
         assertThat(dto).isPresent();
         assertThat(dto.get().getName()).isEqualTo("Dan");
     }
 
+    @Test
+    void getById_shouldBeServedFromCacheAfterFirstLoad() {
+        when(repository.findDtoById(11L)).thenReturn(Optional.of(new PersonDto(11L, "Eve", 33)));
+        service.getById(11L);
+        Optional<PersonDto> second = service.getById(11L);
+        assertThat(second).map(PersonDto::getName).contains("Eve");
+        verify(repository, times(1)).findDtoById(11L);
+    }
+
+    @Test
+    void update_shouldRefreshCachedEntry() {
+        when(repository.findDtoById(12L)).thenReturn(Optional.of(new PersonDto(12L, "Old", 1)));
+        when(repository.updateNameAndAgeIfVersion(12L, 0L, "New", 2)).thenReturn(1);
+        service.getById(12L);
+        service.update(new PersonDto(12L, "New", 2, 0L));
+        assertThat(service.getById(12L)).map(PersonDto::getName).contains("New");
+        verify(repository, times(1)).findDtoById(12L);
+    }
+
     @Test
     void getAll_shouldReturnListOfDtos() {
-        when(repository.findAll()).thenReturn(Arrays.asList(
-                new Person(1L, "A", 10), new Person(2L, "B", 20)
+        when(repository.findAllDtos()).thenReturn(Arrays.asList(
+                new PersonDto(1L, "A", 10), new PersonDto(2L, "B", 20)
         ));
         List<PersonDto> all = service.getAll();
         assertThat(all).hasSize(2);
         assertThat(all.get(0).getName()).isEqualTo("A");
     }
 
+    @Test
+    void getPage_shouldQueryAfterCursorWithLimit() {
+        when(repository.findDtosAfter(eq(5L), any(Limit.class))).thenReturn(Arrays.asList(
+                new PersonDto(6L, "F", 60), new PersonDto(7L, "G", 70)
+        ));
+        List<PersonDto> page = service.getPage(5L, 2);
+        assertThat(page).extracting(PersonDto::getId).containsExactly(6L, 7L);
+    }
+
+    @Test
+    void streamAll_shouldFeedEveryRowToConsumer() {
+        when(repository.streamAllOrderById()).thenReturn(Stream.of(
+                new PersonDto(1L, "A", 10), new PersonDto(2L, "B", 20)
+        ));
+        List<PersonDto> seen = new ArrayList<>();
+        service.streamAll(seen::add);
+        assertThat(seen).extracting(PersonDto::getName).containsExactly("A", "B");
+    }
+
     @Test
     void delete_byId_shouldDelegate() {
-        service.delete(99L);
-        verify(repository).deleteById(99L);
+        when(repository.deleteByIdIn(List.of(99L))).thenReturn(1);
+        assertThat(service.delete(99L)).isTrue();
+        verify(repository).deleteByIdIn(List.of(99L));
+    }
+
+    @Test
+    void delete_ofMissingId_shouldRecordNoChange() {
+        assertThat(service.delete(98L)).isFalse();
+        verifyNoInteractions(changeRepository);
     }
 
     @Test
@@ -89,4 +190,78 @@ class PersonServiceTest {
         when(repository.count()).thenReturn(123L);
         assertThat(service.count()).isEqualTo(123L);
     }
+
+    @Test
+    void count_shouldBeMaintainedIncrementallyByCreate() {
+        when(repository.count()).thenReturn(5L);
+        when(repository.save(any(Person.class))).thenAnswer(invocation -> {
+            Person p = invocation.getArgument(0);
+            return new Person(6L, p.getName(), p.getAge());
+        });
+        service.count();
+        service.create(new PersonDto(null, "Frank", 44));
+        assertThat(service.count()).isEqualTo(6L);
+        verify(repository, times(1)).count();
+    }
+
+    @Test
+    void count_shouldNotKeepALoadThatRacedWithAWrite() {
+        PersonCache cache = new PersonCache(new ServiceProperties(), new SimpleMeterRegistry());
+
+        // the write lands while the count is being read, so the loaded value cannot be trusted
+        assertThat(cache.count(() -> {
+            cache.adjustCount(1);
+            return 5L;
+        })).isEqualTo(5L);
+        assertThat(cache.count(() -> 6L)).isEqualTo(6L);
+        assertThat(cache.count(() -> 99L)).isEqualTo(6L);
+    }
+
+    @Test
+    void delete_shouldEvictAndAdjustCount() {
+        when(repository.count()).thenReturn(5L);
+        when(repository.deleteByIdIn(List.of(6L))).thenReturn(1);
+        service.count();
+        service.delete(6L);
+        assertThat(service.count()).isEqualTo(4L);
+        verify(repository, times(1)).count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writes_shouldRecordChangesInTheOutbox() {
+        when(repository.save(any(Person.class))).thenAnswer(invocation -> {
+            Person p = invocation.getArgument(0);
+            return new Person(7L, p.getName(), p.getAge());
+        });
+        when(repository.updateNameAndAge(7L, "Gina", 29)).thenReturn(1);
+        when(repository.findDtoById(7L)).thenReturn(Optional.of(new PersonDto(7L, "Gina", 29, 1L)));
+        when(repository.deleteByIdIn(List.of(7L))).thenReturn(1);
+
+        service.create(new PersonDto(null, "Gina", 28));
+        service.update(new PersonDto(7L, "Gina", 29));
+        service.delete(7L);
+
+        ArgumentCaptor<PersonChange> saved = ArgumentCaptor.forClass(PersonChange.class);
+        verify(changeRepository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(PersonChange::getType, PersonChange::getPersonId, PersonChange::getAge)
+                .containsExactly(tuple(PersonChange.Type.CREATED, 7L, 28), tuple(PersonChange.Type.UPDATED, 7L, 29));
+        ArgumentCaptor<Iterable<PersonChange>> deleted = ArgumentCaptor.forClass(Iterable.class);
+        verify(changeRepository).saveAll(deleted.capture());
+        assertThat(deleted.getValue()).extracting(PersonChange::getType, PersonChange::getPersonId)
+                .containsExactly(tuple(PersonChange.Type.DELETED, 7L));
+    }
+
+    @Test
+    void cacheMisses_shouldLoadInAReadWriteTransaction() {
+        when(repository.findDtoById(1L)).thenReturn(Optional.of(new PersonDto(1L, "Ann", 30, 0L)));
+        when(repository.count()).thenReturn(1L);
+
+        service.getById(1L);
+        service.count();
+
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues()).noneMatch(TransactionDefinition::isReadOnly);
+    }
 }
@@ -0,0 +1,105 @@
+package com.henrique.person.service.changes;
+
+import com.henrique.person.model.dto.PersonChangeDto;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonChangeRepository;
+import com.henrique.person.service.config.ServiceProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class PersonChangeRelayTest {
+
+    private PersonChangeRepository repository;
+    private PersonChangeRelay relay;
+    private final List<List<Long>> delivered = new ArrayList<>();
+    private final PersonChangeSubscriber subscriber = changes -> delivered.add(changes.stream().map(PersonChangeDto::getId).toList());
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(PersonChangeRepository.class);
+        relay = new PersonChangeRelay(repository, new ServiceProperties(), new StandardEnvironment());
+    }
+
+    private static PersonChange change(long id, Instant createdAt) {
+        return new PersonChange(id, PersonChange.Type.UPDATED, 1L, "A", 1, createdAt);
+    }
+
+    @Test
+    void liveSubscriber_shouldOnlyReceiveChangesAfterTheHead() {
+        when(repository.findLastId()).thenReturn(10L);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(10L), any())).thenReturn(List.of());
+        relay.subscribe(subscriber, null);
+        relay.poll();
+        assertThat(delivered).isEmpty();
+
+        Instant now = Instant.now();
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(10L), any())).thenReturn(List.of(change(11, now), change(12, now)));
+        relay.poll();
+
+        assertThat(delivered).containsExactly(List.of(11L, 12L));
+        assertThat(relay.getHead()).isEqualTo(12L);
+    }
+
+    @Test
+    void recentGap_shouldHoldBackLaterChangesUntilItTimesOut() throws InterruptedException {
+        ServiceProperties properties = new ServiceProperties();
+        properties.getChanges().setGapTimeout(Duration.ofMillis(50));
+        relay = new PersonChangeRelay(repository, properties, new StandardEnvironment());
+        when(repository.findLastId()).thenReturn(10L);
+        relay.subscribe(subscriber, null);
+
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(10L), any())).thenReturn(List.of(change(11, Instant.now()), change(13, Instant.now())));
+        relay.poll();
+        assertThat(delivered).containsExactly(List.of(11L));
+
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(11L), any())).thenReturn(List.of(change(13, Instant.now())));
+        Thread.sleep(100);
+        relay.poll();
+        assertThat(delivered).containsExactly(List.of(11L), List.of(13L));
+    }
+
+    @Test
+    void gap_shouldBeTimedFromWhenItWasFirstSeenNotFromTheRowsAfterIt() {
+        when(repository.findLastId()).thenReturn(10L);
+        relay.subscribe(subscriber, null);
+
+        // offset 11 commits late, after 12 was written long ago
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(10L), any())).thenReturn(List.of(change(12, Instant.now().minusSeconds(60))));
+        relay.poll();
+        assertThat(delivered).isEmpty();
+
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(10L), any()))
+                .thenReturn(List.of(change(11, Instant.now()), change(12, Instant.now().minusSeconds(60))));
+        relay.poll();
+        assertThat(delivered).containsExactly(List.of(11L, 12L));
+    }
+
+    @Test
+    void resumingSubscriber_shouldBeCaughtUpFromTheOutbox() {
+        Instant now = Instant.now();
+        when(repository.findLastId()).thenReturn(12L);
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(12L), any())).thenReturn(List.of(change(13, now)));
+        when(repository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(eq(10L), anyLong(), any()))
+                .thenReturn(List.of(change(11, now), change(12, now), change(13, now)));
+        relay.subscribe(subscriber, 10L);
+
+        relay.poll();
+        when(repository.findByIdGreaterThanOrderByIdAsc(eq(13L), any())).thenReturn(List.of(change(14, now)));
+        relay.poll();
+
+        assertThat(delivered).containsExactly(List.of(11L, 12L, 13L), List.of(14L));
+    }
+}
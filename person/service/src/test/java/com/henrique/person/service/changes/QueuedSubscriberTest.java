@@ -0,0 +1,71 @@
+package com.henrique.person.service.changes;
+
+import com.henrique.person.model.dto.PersonChangeDto;
+import com.henrique.person.model.entity.PersonChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueuedSubscriberTest {
+
+    private final List<Runnable> pendingWriters = new ArrayList<>();
+    private final List<Long> delivered = new ArrayList<>();
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    private static List<PersonChangeDto> batch(long offset) {
+        return List.of(new PersonChangeDto(offset, PersonChange.Type.DELETED, 1L, null, 0));
+    }
+
+    private void runWriters() {
+        List<Runnable> writers = new ArrayList<>(pendingWriters);
+        pendingWriters.clear();
+        writers.forEach(Runnable::run);
+    }
+
+    @Test
+    void deliver_shouldNotCallTheSubscriberOnTheCallerThread() {
+        QueuedSubscriber subscriber = new QueuedSubscriber(changes -> delivered.add(changes.get(0).getId()),
+                4, pendingWriters::add, dropped::incrementAndGet);
+
+        assertThat(subscriber.deliver(batch(1))).isTrue();
+        assertThat(subscriber.deliver(batch(2))).isTrue();
+
+        assertThat(delivered).isEmpty();
+        assertThat(pendingWriters).hasSize(1);
+        runWriters();
+        assertThat(delivered).containsExactly(1L, 2L);
+        assertThat(dropped).hasValue(0);
+    }
+
+    @Test
+    void fullQueue_shouldDropTheSubscriberOnceTheWriterReturns() {
+        QueuedSubscriber subscriber = new QueuedSubscriber(changes -> delivered.add(changes.get(0).getId()),
+                2, pendingWriters::add, dropped::incrementAndGet);
+        subscriber.deliver(batch(1));
+        subscriber.deliver(batch(2));
+
+        assertThat(subscriber.deliver(batch(3))).isFalse();
+        assertThat(subscriber.deliver(batch(4))).isFalse();
+        assertThat(subscriber.size()).isZero();
+
+        runWriters();
+        assertThat(delivered).isEmpty();
+        assertThat(dropped).hasValue(1);
+    }
+
+    @Test
+    void failingSubscriber_shouldBeDroppedAndRejectFurtherBatches() {
+        QueuedSubscriber subscriber = new QueuedSubscriber(changes -> false, 4, pendingWriters::add, dropped::incrementAndGet);
+        subscriber.deliver(batch(1));
+        subscriber.deliver(batch(2));
+
+        runWriters();
+
+        assertThat(dropped).hasValue(1);
+        assertThat(subscriber.deliver(batch(3))).isFalse();
+    }
+}
@@ -0,0 +1,112 @@
+package com.henrique.person.service.config;
+
+import com.henrique.person.service.handler.WebSocketHandler;
+import com.henrique.person.service.limit.HandshakeAdmission;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.support.WebSocketHttpRequestHandler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the handshake handler in an embedded Tomcat, since the container, not Spring, decides which
+ * extensions are negotiated.
+ */
+class WebSocketConfigTest {
+
+    private static final String PATH = "/ws-endpoint";
+
+    @TempDir
+    Path baseDir;
+
+    private Tomcat tomcat;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    @Test
+    void deflateOffers_shouldBeAcceptedByDefault() throws Exception {
+        List<String> response = handshake(start(true), "permessage-deflate; client_max_window_bits");
+
+        assertThat(response.get(0)).contains("101");
+        assertThat(response).anyMatch(header -> header.toLowerCase().startsWith("sec-websocket-extensions:")
+                && header.contains("permessage-deflate"));
+    }
+
+    @Test
+    void deflateOffers_shouldBeIgnoredWhenDisabled() throws Exception {
+        List<String> response = handshake(start(false), "permessage-deflate; client_max_window_bits");
+
+        assertThat(response.get(0)).contains("101");
+        assertThat(response).noneMatch(header -> header.toLowerCase().startsWith("sec-websocket-extensions:"));
+    }
+
+    private int start(boolean deflate) throws Exception {
+        ServiceProperties properties = new ServiceProperties();
+        properties.getWebsocket().setPermessageDeflate(deflate);
+        WebSocketConfig config = new WebSocketConfig(Mockito.mock(WebSocketHandler.class),
+                Mockito.mock(HandshakeAdmission.class), properties);
+        WebSocketHttpRequestHandler requestHandler = new WebSocketHttpRequestHandler(new TextWebSocketHandler(),
+                config.handshakeHandler());
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        Context context = tomcat.addContext("", null);
+        context.addServletContainerInitializer(new WsSci(), null);
+        Tomcat.addServlet(context, "ws", new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+                requestHandler.handleRequest(request, response);
+            }
+        });
+        context.addServletMappingDecoded(PATH, "ws");
+        tomcat.start();
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    private static List<String> handshake(int port, String extensions) throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + PATH + " HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                    + "Sec-WebSocket-Version: 13\r\n"
+                    + "Sec-WebSocket-Extensions: " + extensions + "\r\n"
+                    + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            List<String> lines = new ArrayList<>();
+            for (String line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine()) {
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.henrique.person.service.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.henrique.person.model.dto.PersonDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InboundDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InboundDecoder decoder = new InboundDecoder(objectMapper.getFactory());
+    private final ObjectReader personReader = objectMapper.readerFor(PersonDto.class);
+    private final Function<String, ObjectReader> readers = destination -> "person.save".equals(destination) ? personReader : null;
+
+    @Test
+    void shouldBindObjectBodyDirectly() throws Exception {
+        InboundDecoder.Inbound inbound = decoder.decode(
+                "{\"destination\":\"person.save\",\"body\":{\"id\":1,\"name\":\"Alice\",\"age\":30}}", readers);
+
+        assertThat(inbound.destination()).isEqualTo("person.save");
+        assertThat(inbound.body()).isInstanceOfSatisfying(PersonDto.class, dto -> {
+            assertThat(dto.getName()).isEqualTo("Alice");
+            assertThat(dto.getAge()).isEqualTo(30);
+        });
+    }
+
+    @Test
+    void shouldBindStringEncodedBody() throws Exception {
+        InboundDecoder.Inbound inbound = decoder.decode(
+                "{\"destination\":\"person.save\",\"body\":\"{\\\"name\\\":\\\"Bob\\\",\\\"age\\\":40}\"}", readers);
+
+        assertThat(((PersonDto) inbound.body()).getName()).isEqualTo("Bob");
+    }
+
+    @Test
+    void shouldBufferBodyThatPrecedesDestination() throws Exception {
+        InboundDecoder.Inbound inbound = decoder.decode(
+                "{\"body\":{\"name\":\"Carol\",\"age\":20},\"extra\":[1,2],\"destination\":\"person.save\"}", readers);
+
+        assertThat(((PersonDto) inbound.body()).getName()).isEqualTo("Carol");
+    }
+
+    @Test
+    void shouldSkipBodyOfUnknownDestination() throws Exception {
+        InboundDecoder.Inbound inbound = decoder.decode(
+                "{\"destination\":\"unknown\",\"body\":{\"nested\":{\"a\":1}}}", readers);
+
+        assertThat(inbound.destination()).isEqualTo("unknown");
+        assertThat(inbound.body()).isNull();
+    }
+}
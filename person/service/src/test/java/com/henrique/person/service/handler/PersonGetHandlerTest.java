@@ -0,0 +1,57 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.service.PersonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PersonGetHandlerTest {
+
+    private WebSocketHandler webSocketHandler;
+    private PersonService personService;
+    private PersonGetHandler handler;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() {
+        webSocketHandler = Mockito.mock(WebSocketHandler.class);
+        personService = Mockito.mock(PersonService.class);
+        handler = new PersonGetHandler(webSocketHandler, personService);
+        session = Mockito.mock(WebSocketSession.class);
+    }
+
+    @Test
+    void missingId_shouldBeRefusedOnTheErrorDestination() {
+        handler.process(session, null);
+
+        verify(webSocketHandler).sendToSession(eq(session), eq(WebSocketHandler.ERROR), anyString());
+        verify(personService, never()).getById(any());
+    }
+
+    @Test
+    void missingIdsInABatch_shouldFailOnTheirOwn() {
+        PersonDto alice = new PersonDto(1L, "Alice", 30, 0L);
+        when(personService.getById(1L)).thenReturn(Optional.of(alice));
+        when(personService.getById(2L)).thenReturn(Optional.empty());
+
+        List<?> results = handler.processBatch(session, Arrays.asList(1L, null, 2L));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).isSameAs(alice);
+        assertThat(results.get(1)).isInstanceOf(AbstractServiceHandler.Rejected.class);
+        assertThat(results.get(2)).isNull();
+        verify(personService, never()).getById(null);
+    }
+}
@@ -0,0 +1,146 @@
+package com.henrique.person.service.handler;
+
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SessionOutboundTest {
+
+    private final List<Runnable> pendingWriters = new ArrayList<>();
+    private WebSocketSession session;
+    private ServiceProperties.Outbound config;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        session = Mockito.mock(WebSocketSession.class);
+        config = new ServiceProperties().getWebsocket().getOutbound();
+        config.setMaxMessages(2);
+        registry = new SimpleMeterRegistry();
+    }
+
+    private SessionOutbound outbound(OverflowPolicy policy) {
+        config.setOverflowPolicy(policy);
+        return new SessionOutbound(session, config, pendingWriters::add, new OutboundMetrics(registry));
+    }
+
+    private List<String> drainAndCaptureSent() throws Exception {
+        pendingWriters.forEach(Runnable::run);
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, atLeast(0)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    @Test
+    void offer_shouldNotWriteOnCallerThreadAndScheduleSingleWriter() throws Exception {
+        SessionOutbound outbound = outbound(OverflowPolicy.DROP_OLDEST);
+        outbound.offer("a", new TextMessage("1"));
+        outbound.offer("a", new TextMessage("2"));
+
+        verify(session, never()).sendMessage(any());
+        assertThat(pendingWriters).hasSize(1);
+        assertThat(drainAndCaptureSent()).containsExactly("1", "2");
+        assertThat(registry.get("person.ws.outbound.queued").tag("destination", "a").gauge().value()).isZero();
+    }
+
+    @Test
+    void dropOldest_shouldKeepNewestMessages() throws Exception {
+        SessionOutbound outbound = outbound(OverflowPolicy.DROP_OLDEST);
+        outbound.offer("a", new TextMessage("1"));
+        outbound.offer("a", new TextMessage("2"));
+        outbound.offer("a", new TextMessage("3"));
+
+        assertThat(drainAndCaptureSent()).containsExactly("2", "3");
+        assertThat(registry.get("person.ws.outbound.dropped").tag("reason", "overflow").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void coalesce_shouldReplaceQueuedMessageOfSameDestination() throws Exception {
+        SessionOutbound outbound = outbound(OverflowPolicy.COALESCE);
+        outbound.offer("a", new TextMessage("a1"));
+        outbound.offer("b", new TextMessage("b1"));
+        outbound.offer("a", new TextMessage("a2"));
+
+        assertThat(drainAndCaptureSent()).containsExactly("b1", "a2");
+    }
+
+    @Test
+    void disconnect_shouldCloseSessionAndRejectFurtherMessages() throws Exception {
+        SessionOutbound outbound = outbound(OverflowPolicy.DISCONNECT);
+        outbound.offer("a", new TextMessage("1"));
+        outbound.offer("a", new TextMessage("2"));
+
+        assertThat(outbound.offer("a", new TextMessage("3"))).isFalse();
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(outbound.offer("a", new TextMessage("4"))).isFalse();
+        assertThat(drainAndCaptureSent()).isEmpty();
+    }
+
+    @Test
+    void offer_shouldRefuseMessageLargerThanTheWholeBuffer() throws Exception {
+        config.setBufferSizeLimit(4);
+        SessionOutbound outbound = outbound(OverflowPolicy.DROP_OLDEST);
+        outbound.offer("a", new TextMessage("1"));
+
+        assertThat(outbound.offer("a", new TextMessage("12345"))).isFalse();
+        assertThat(outbound.size()).isEqualTo(1);
+        assertThat(outbound.isClosed()).isFalse();
+        assertThat(drainAndCaptureSent()).containsExactly("1");
+        assertThat(registry.get("person.ws.outbound.dropped").tag("reason", "oversize").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void offer_shouldScheduleWriterAgainAfterExecutorRejectedIt() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(1);
+        SessionOutbound outbound = new SessionOutbound(session, config, task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("saturated");
+            }
+            pendingWriters.add(task);
+        }, new OutboundMetrics(registry));
+
+        assertThat(outbound.offer("a", new TextMessage("1"))).isTrue();
+        assertThat(pendingWriters).isEmpty();
+        assertThat(outbound.offer("a", new TextMessage("2"))).isTrue();
+
+        assertThat(pendingWriters).hasSize(1);
+        assertThat(drainAndCaptureSent()).containsExactly("1", "2");
+    }
+
+    @Test
+    void closeIfStalled_shouldCloseSessionWhileWriteIsBlocked() throws Exception {
+        SessionOutbound outbound = outbound(OverflowPolicy.DROP_OLDEST);
+        long limit = config.getSendTimeLimit().toNanos();
+        List<Boolean> stalled = new ArrayList<>();
+        doAnswer(invocation -> {
+            stalled.add(outbound.closeIfStalled(System.nanoTime()));
+            stalled.add(outbound.closeIfStalled(System.nanoTime() + limit + 1));
+            throw new IOException("closed under the write");
+        }).when(session).sendMessage(any());
+        outbound.offer("a", new TextMessage("1"));
+
+        pendingWriters.forEach(Runnable::run);
+
+        assertThat(stalled).containsExactly(false, true);
+        assertThat(outbound.closeIfStalled(System.nanoTime() + limit + 1)).isFalse();
+        assertThat(outbound.isClosed()).isTrue();
+        verify(session, atLeastOnce()).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(registry.get("person.ws.outbound.dropped").tag("reason", "stalled").counter().count()).isEqualTo(1);
+        assertThat(registry.find("person.ws.outbound.dropped").tag("reason", "error").counter()).isNull();
+    }
+}
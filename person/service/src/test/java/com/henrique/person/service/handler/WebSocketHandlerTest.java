@@ -0,0 +1,364 @@
+package com.henrique.person.service.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.limit.ConcurrencyLimiter;
+import com.henrique.person.service.limit.RateLimiter;
+import com.henrique.person.service.relay.ClusterRelay;
+import com.henrique.person.service.relay.LoopbackMessageRelay;
+import com.henrique.person.service.relay.MessageRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WebSocketHandlerTest {
+
+    private OutboundQueues outboundQueues;
+    private SessionRegistry sessionRegistry;
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        outboundQueues = Mockito.mock(OutboundQueues.class);
+        when(outboundQueues.offer(any(), any(), any())).thenReturn(true);
+        sessionRegistry = newSessionRegistry();
+        meterRegistry = new SimpleMeterRegistry();
+        handler = newHandler(outboundQueues, sessionRegistry, new LoopbackMessageRelay(), meterRegistry);
+    }
+
+    private static SessionRegistry newSessionRegistry() {
+        ServiceProperties properties = new ServiceProperties();
+        properties.getWebsocket().setMaxSessionsPerClient(2);
+        return new SessionRegistry(properties, new SimpleMeterRegistry());
+    }
+
+    private static WebSocketHandler newHandler(OutboundQueues outboundQueues, SessionRegistry sessionRegistry, MessageRelay relay) {
+        return newHandler(outboundQueues, sessionRegistry, relay, new SimpleMeterRegistry());
+    }
+
+    private static WebSocketHandler newHandler(OutboundQueues outboundQueues, SessionRegistry sessionRegistry, MessageRelay relay,
+                                               SimpleMeterRegistry meterRegistry) {
+        return newHandler(outboundQueues, sessionRegistry, relay, meterRegistry, new ServiceProperties());
+    }
+
+    private static WebSocketHandler newHandler(OutboundQueues outboundQueues, SessionRegistry sessionRegistry, MessageRelay relay,
+                                               SimpleMeterRegistry meterRegistry, ServiceProperties properties) {
+        WebSocketExecutors executors = Mockito.mock(WebSocketExecutors.class);
+        when(executors.getDispatchers()).thenReturn(Runnable::run);
+        ClusterRelay clusterRelay = new ClusterRelay(relay, properties, executors, new SimpleMeterRegistry());
+        WebSocketHandler handler = new WebSocketHandler(new ObjectMapper(), outboundQueues, sessionRegistry, clusterRelay, executors,
+                new RateLimiter(properties, meterRegistry), new ConcurrencyLimiter(properties, meterRegistry), properties, meterRegistry);
+        handler.joinCluster();
+        return handler;
+    }
+
+    private WebSocketSession session(String id) {
+        return session(id, id);
+    }
+
+    private WebSocketSession session(String id, String clientUuid) {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("clientUuid", clientUuid);
+        when(session.getId()).thenReturn(id);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    @Test
+    void broadcast_shouldSerializeOnceAndQueueSameFrameForEverySubscriber() {
+        WebSocketSession first = session("1");
+        WebSocketSession second = session("2");
+        handler.subscribe(first, "person.changes");
+        handler.subscribe(second, "person.changes");
+
+        int queued = handler.broadcast("person.changes", Map.of("id", 1));
+
+        assertThat(queued).isEqualTo(2);
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(outboundQueues).offer(eq(first), eq("person.changes"), captor.capture());
+        verify(outboundQueues).offer(eq(second), eq("person.changes"), captor.capture());
+        assertThat(captor.getAllValues().get(0)).isSameAs(captor.getAllValues().get(1));
+        assertThat(captor.getValue().getPayload()).contains("\"destination\":\"person.changes\"");
+    }
+
+    @Test
+    void subscribeAndUnsubscribe_shouldBeDrivenByInboundControlMessages() throws Exception {
+        WebSocketSession session = session("1");
+
+        handler.handleTextMessage(session, new TextMessage("{\"destination\":\"subscribe\",\"body\":\"person.changes\"}"));
+        assertThat(handler.getSubscriberCount("person.changes")).isEqualTo(1);
+
+        handler.handleTextMessage(session, new TextMessage("{\"destination\":\"unsubscribe\",\"body\":\"person.changes\"}"));
+        assertThat(handler.getSubscriberCount("person.changes")).isZero();
+        assertThat(handler.broadcast("person.changes", "ignored")).isZero();
+    }
+
+    @Test
+    void closedSession_shouldBeRemovedFromEveryTopic() {
+        WebSocketSession session = session("1");
+        handler.subscribe(session, "a");
+        handler.subscribe(session, "b");
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        assertThat(handler.getSubscriberCount("a")).isZero();
+        assertThat(handler.getSubscriberCount("b")).isZero();
+        verify(outboundQueues).remove(session);
+    }
+
+    @Test
+    void batchFrame_shouldCallEachHandlerOnceAndReplyOnceInFrameOrder() throws Exception {
+        List<List<Long>> calls = new ArrayList<>();
+        handler.register("double", new AbstractServiceHandler<>(Long.class) {
+            @Override
+            public void process(WebSocketSession session, Long value) {
+            }
+
+            @Override
+            public List<?> processBatch(WebSocketSession session, List<Long> batch) {
+                calls.add(batch);
+                return batch.stream().map(value -> value * 2).toList();
+            }
+        });
+        WebSocketSession session = session("1");
+
+        handler.handleTextMessage(session, new TextMessage("""
+                [{"id":"a","destination":"double","body":1},
+                 {"id":"b","destination":"missing","body":2},
+                 {"id":"c","destination":"double","body":3}]"""));
+
+        assertThat(calls).containsExactly(List.of(1L, 3L));
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(outboundQueues, times(1)).offer(eq(session), eq(WebSocketHandler.BATCH), captor.capture());
+        assertThat(captor.getValue().getPayload())
+                .contains("{\"id\":\"a\",\"destination\":\"double\",\"result\":2}")
+                .contains("{\"id\":\"b\",\"destination\":\"missing\",\"error\":\"Unknown destination\"}")
+                .contains("{\"id\":\"c\",\"destination\":\"double\",\"result\":6}");
+
+        assertThat(meterRegistry.get("person.ws.inbound.frames").tag("kind", "batch").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("person.ws.inbound.unknown").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("person.ws.inbound.handler")
+                .tags("destination", "double", "mode", "batch", "outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedBatchResults_shouldBeReportedAsErrorsOfTheirCommands() throws Exception {
+        handler.register("echo", new AbstractServiceHandler<>(Long.class) {
+            @Override
+            public void process(WebSocketSession session, Long value) {
+            }
+
+            @Override
+            public List<?> processBatch(WebSocketSession session, List<Long> batch) {
+                return batch.stream().map(value -> value == null ? new Rejected("Missing body") : value).toList();
+            }
+        });
+        WebSocketSession session = session("1");
+
+        handler.handleTextMessage(session, new TextMessage("""
+                [{"id":"a","destination":"echo","body":1},
+                 {"id":"b","destination":"echo","body":null}]"""));
+
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(outboundQueues).offer(eq(session), eq(WebSocketHandler.BATCH), captor.capture());
+        assertThat(captor.getValue().getPayload())
+                .contains("{\"id\":\"a\",\"destination\":\"echo\",\"result\":1}")
+                .contains("{\"id\":\"b\",\"destination\":\"echo\",\"error\":\"Missing body\"}");
+    }
+
+    @Test
+    void commandsOverTheRateLimit_shouldFailInTheBatchReplyAndCloseOnSingleFrames() throws Exception {
+        ServiceProperties properties = new ServiceProperties();
+        properties.getLimits().getWebsocket().getDestinations().put("echo", new ServiceProperties.Rate(0.001, 3));
+        handler = newHandler(outboundQueues, sessionRegistry, new LoopbackMessageRelay(), meterRegistry, properties);
+        List<Long> processed = new ArrayList<>();
+        handler.register("echo", new AbstractServiceHandler<>(Long.class) {
+            @Override
+            public void process(WebSocketSession session, Long value) {
+                processed.add(value);
+            }
+        });
+        WebSocketSession session = session("1");
+
+        handler.handleTextMessage(session, new TextMessage("""
+                [{"id":"a","destination":"echo","body":1},
+                 {"id":"b","destination":"echo","body":2}]"""));
+        handler.handleTextMessage(session, new TextMessage("""
+                [{"id":"c","destination":"echo","body":3},
+                 {"id":"d","destination":"echo","body":4}]"""));
+
+        assertThat(processed).containsExactly(1L, 2L);
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(outboundQueues, times(2)).offer(eq(session), eq(WebSocketHandler.BATCH), captor.capture());
+        assertThat(captor.getValue().getPayload())
+                .contains("{\"id\":\"c\",\"destination\":\"echo\",\"error\":\"Rate limit exceeded\"}");
+
+        handler.handleTextMessage(session, new TextMessage("{\"destination\":\"echo\",\"body\":5}"));
+        handler.handleTextMessage(session, new TextMessage("{\"destination\":\"echo\",\"body\":6}"));
+
+        assertThat(processed).containsExactly(1L, 2L, 5L);
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()));
+        assertThat(meterRegistry.get("person.limits.rejected").tags("limit", "ws.echo", "reason", "rate").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void groupsLargerThanTheBurst_shouldBeAdmittedOnAFullBucket() throws Exception {
+        ServiceProperties properties = new ServiceProperties();
+        properties.getLimits().getWebsocket().getDestinations().put("echo", new ServiceProperties.Rate(0.001, 2));
+        handler = newHandler(outboundQueues, sessionRegistry, new LoopbackMessageRelay(), meterRegistry, properties);
+        List<Long> processed = new ArrayList<>();
+        handler.register("echo", new AbstractServiceHandler<>(Long.class) {
+            @Override
+            public void process(WebSocketSession session, Long value) {
+                processed.add(value);
+            }
+        });
+
+        handler.handleTextMessage(session("1"), new TextMessage("""
+                [{"id":"a","destination":"echo","body":1},
+                 {"id":"b","destination":"echo","body":2},
+                 {"id":"c","destination":"echo","body":3}]"""));
+
+        assertThat(processed).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void partialMessages_shouldBeAssembledUpToTheMaximumSize() throws Exception {
+        ServiceProperties properties = new ServiceProperties();
+        properties.getWebsocket().getBuffers().setMaxMessageSize(64);
+        handler = newHandler(outboundQueues, sessionRegistry, new LoopbackMessageRelay(), meterRegistry, properties);
+        List<Long> processed = new ArrayList<>();
+        handler.register("echo", new AbstractServiceHandler<>(Long.class) {
+            @Override
+            public void process(WebSocketSession session, Long value) {
+                processed.add(value);
+            }
+        });
+        WebSocketSession session = session("1");
+
+        assertThat(handler.supportsPartialMessages()).isTrue();
+        handler.handleTextMessage(session, new TextMessage("{\"destination\":", false));
+        handler.handleTextMessage(session, new TextMessage("\"echo\",\"bo", false));
+        assertThat(processed).isEmpty();
+        handler.handleTextMessage(session, new TextMessage("dy\":7}", true));
+        handler.handleTextMessage(session, new TextMessage("{\"destination\":\"echo\",\"body\":8}"));
+
+        assertThat(processed).containsExactly(7L, 8L);
+        assertThat(meterRegistry.get("person.ws.inbound.assembled").counter().count()).isEqualTo(1);
+
+        handler.handleTextMessage(session, new TextMessage("{\"destination\":\"echo\",\"body\":\"" + "x".repeat(20), false));
+        handler.handleTextMessage(session, new TextMessage("x".repeat(20) + "\"}", true));
+
+        assertThat(processed).containsExactly(7L, 8L);
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.TOO_BIG_TO_PROCESS.getCode()));
+    }
+
+    @Test
+    void messageAssembler_shouldReuseItsBuffersButNotLargeOnes() {
+        MessageAssembler assembler = new MessageAssembler(new ServiceProperties(), new SimpleMeterRegistry());
+        WebSocketSession session = session("1");
+
+        assertThat(assembler.append(session, new TextMessage("whole"))).isEqualTo("whole");
+        assertThat(assembler.pooled()).isZero();
+
+        assertThat(assembler.append(session, new TextMessage("a", false))).isNull();
+        assertThat(assembler.append(session, new TextMessage("b", true))).isEqualTo("ab");
+        assertThat(assembler.pooled()).isEqualTo(1);
+
+        assertThat(assembler.append(session, new TextMessage("c", false))).isNull();
+        assertThat(assembler.pooled()).isZero();
+        assertThat(assembler.append(session, new TextMessage("x".repeat(MessageAssembler.RETAINED_CAPACITY + 1), true))).endsWith("x");
+        assertThat(assembler.pooled()).isZero();
+    }
+
+    @Test
+    void closedSession_shouldOnlyRemoveItselfFromTheRegistry() {
+        WebSocketSession first = session("1", "client");
+        WebSocketSession second = session("2", "client");
+        handler.afterConnectionEstablished(first);
+        handler.afterConnectionEstablished(second);
+
+        handler.afterConnectionClosed(first, CloseStatus.NORMAL);
+
+        assertThat(sessionRegistry.get("client")).containsExactly(second);
+        assertThat(handler.sendToClientId("client", "x", 1)).isEqualTo(1);
+
+        handler.afterConnectionClosed(second, CloseStatus.NORMAL);
+        assertThat(sessionRegistry.size()).isZero();
+        assertThat(sessionRegistry.clientCount()).isZero();
+        assertThat(handler.sendToClientId("client", "x", 1)).isZero();
+    }
+
+    @Test
+    void sessionsOverThePerClientLimit_shouldCloseTheOldest() throws Exception {
+        WebSocketSession first = session("1", "client");
+        WebSocketSession second = session("2", "client");
+        WebSocketSession third = session("3", "client");
+        handler.afterConnectionEstablished(first);
+        handler.afterConnectionEstablished(second);
+        handler.afterConnectionEstablished(third);
+
+        verify(first).close(argThat(status -> status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()));
+        assertThat(sessionRegistry.get("client")).containsExactly(second, third);
+    }
+
+    @Test
+    void heartbeat_shouldPingActiveSessionsAndCloseIdleOnes() throws Exception {
+        WebSocketSession active = session("1");
+        WebSocketSession idle = session("2");
+        handler.afterConnectionEstablished(active);
+        handler.afterConnectionEstablished(idle);
+        handler.subscribe(idle, "person.changes");
+        idle.getAttributes().put("updatedAt", System.currentTimeMillis() - 3_600_000);
+
+        handler.heartbeat();
+
+        verify(outboundQueues).offer(eq(active), eq("ping"), any(PingMessage.class));
+        verify(idle).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(outboundQueues).remove(idle);
+        assertThat(sessionRegistry.all()).containsExactly(active);
+        assertThat(handler.getSubscriberCount("person.changes")).isZero();
+    }
+
+    @Test
+    void messagesForClientsAndTopicsOnOtherNodes_shouldBeRelayed() {
+        MessageRelay relay = new LoopbackMessageRelay();
+        OutboundQueues remoteQueues = Mockito.mock(OutboundQueues.class);
+        when(remoteQueues.offer(any(), any(), any())).thenReturn(true);
+        WebSocketHandler local = newHandler(outboundQueues, sessionRegistry, relay);
+        WebSocketHandler remote = newHandler(remoteQueues, newSessionRegistry(), relay);
+        WebSocketSession session = session("1", "client");
+        remote.afterConnectionEstablished(session);
+        remote.subscribe(session, "person.changes");
+
+        assertThat(local.sendToClientId("client", "person", 1)).isZero();
+        assertThat(local.broadcast("person.changes", 2)).isZero();
+
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(remoteQueues).offer(eq(session), eq("person"), captor.capture());
+        verify(remoteQueues).offer(eq(session), eq("person.changes"), captor.capture());
+        assertThat(captor.getAllValues().get(0).getPayload()).contains("\"destination\":\"person\"", "\"body\":1");
+        assertThat(captor.getAllValues().get(1).getPayload()).contains("\"destination\":\"person.changes\"", "\"body\":2");
+        verify(outboundQueues, never()).offer(eq(session), any(), any());
+    }
+}
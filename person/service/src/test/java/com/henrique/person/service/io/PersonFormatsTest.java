@@ -0,0 +1,154 @@
+package com.henrique.person.service.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.henrique.person.model.dto.PersonDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PersonFormatsTest {
+
+    private static final List<PersonDto> PEOPLE = List.of(
+            new PersonDto(1L, "Alice", 25, 0L),
+            new PersonDto(2L, "Smith, \"Bob\"", 40, 3L),
+            new PersonDto(3L, "Line\nBreak", 7, null),
+            new PersonDto(null, "Zoë", 0, null),
+            new PersonDto(4L, null, 99, 1L));
+
+    private static List<PersonDto> readAll(Iterator<PersonDto> reader) {
+        List<PersonDto> people = new ArrayList<>();
+        reader.forEachRemaining(people::add);
+        return people;
+    }
+
+    private static PersonCsvReader csv(String text) {
+        return new PersonCsvReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void csv_shouldRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PersonCsvWriter writer = new PersonCsvWriter(out)) {
+            for (PersonDto person : PEOPLE) {
+                writer.write(person);
+            }
+        }
+
+        List<PersonDto> read = readAll(new PersonCsvReader(new ByteArrayInputStream(out.toByteArray())));
+
+        assertThat(read)
+                .extracting(PersonDto::getId, PersonDto::getName, PersonDto::getAge, PersonDto::getVersion)
+                .containsExactly(
+                        tuple(1L, "Alice", 25, 0L),
+                        tuple(2L, "Smith, \"Bob\"", 40, 3L),
+                        tuple(3L, "Line\nBreak", 7, null),
+                        tuple(null, "Zoë", 0, null),
+                        // an absent name reads back as empty
+                        tuple(4L, "", 99, 1L));
+    }
+
+    @Test
+    void csv_shouldMapColumnsByHeaderAndSkipBomAndBlankLines() {
+        List<PersonDto> read = readAll(csv("\uFEFFAge,Email,NAME\r\n31,a@b.c,Carol\r\n\r\n45,,\"Dan\"\n"));
+
+        assertThat(read).extracting(PersonDto::getId, PersonDto::getName, PersonDto::getAge)
+                .containsExactly(tuple(null, "Carol", 31), tuple(null, "Dan", 45));
+    }
+
+    @Test
+    void csv_shouldRejectMalformedInputWithItsLine() {
+        assertThatThrownBy(() -> csv("id,name\n1,Eve\n"))
+                .isInstanceOf(PersonFormatException.class)
+                .hasMessageContaining("name and age");
+        assertThatThrownBy(() -> readAll(csv("name,age\nEve,30\nFrank,old\n")))
+                .isInstanceOf(PersonFormatException.class)
+                .hasMessageContaining("line 3");
+        assertThatThrownBy(() -> readAll(csv("name,age\n\"Eve,30\n")))
+                .isInstanceOf(PersonFormatException.class)
+                .hasMessageContaining("quoted field");
+    }
+
+    @Test
+    void csv_shouldRejectRecordsOverTheSizeLimit() {
+        String unterminated = "name,age\nEve,30\n\"" + "x".repeat(PersonCsvReader.MAX_RECORD_SIZE) + "\n,1\n";
+
+        assertThatThrownBy(() -> readAll(csv(unterminated)))
+                .isInstanceOf(PersonFormatException.class)
+                .hasMessageContaining("line 3")
+                .hasMessageContaining("longer than");
+    }
+
+    @Test
+    void binary_shouldRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PersonBinaryWriter writer = new PersonBinaryWriter(out)) {
+            for (PersonDto person : PEOPLE) {
+                writer.write(person);
+            }
+        }
+
+        List<PersonDto> read = readAll(new PersonBinaryReader(new ByteArrayInputStream(out.toByteArray())));
+
+        assertThat(read)
+                .extracting(PersonDto::getId, PersonDto::getName, PersonDto::getAge, PersonDto::getVersion)
+                .containsExactlyElementsOf(PEOPLE.stream()
+                        .map(p -> tuple(p.getId(), p.getName(), p.getAge(), p.getVersion()))
+                        .toList());
+    }
+
+    @Test
+    void binary_shouldRejectForeignAndTruncatedInput() throws IOException {
+        assertThatThrownBy(() -> new PersonBinaryReader(new ByteArrayInputStream("name,age\n".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(PersonFormatException.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PersonBinaryWriter writer = new PersonBinaryWriter(out)) {
+            writer.write(PEOPLE.get(0));
+            writer.write(PEOPLE.get(1));
+        }
+        byte[] bytes = out.toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+        PersonBinaryReader reader = new PersonBinaryReader(new ByteArrayInputStream(truncated));
+        assertThat(reader.next().getName()).isEqualTo("Alice");
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(PersonFormatException.class)
+                .hasMessageContaining("record 2");
+    }
+
+    @Test
+    void json_shouldRejectMalformedRecordsWithTheirNumber() throws IOException {
+        ObjectReader reader = new ObjectMapper().readerFor(PersonDto.class);
+
+        try (JsonRecordReader<PersonDto> people = JsonRecordReader.open(reader, stream("""
+                {"name":"Alice","age":25}
+                {"name":"Bob","age":
+                """))) {
+            assertThat(people.next().getName()).isEqualTo("Alice");
+            assertThatThrownBy(people::next)
+                    .isInstanceOf(PersonFormatException.class)
+                    .hasMessageStartingWith("JSON record 2");
+        }
+        try (JsonRecordReader<PersonDto> people = JsonRecordReader.open(reader, stream("[{\"name\":\"Alice\",\"age\":\"old\"}]"))) {
+            assertThatThrownBy(people::next)
+                    .isInstanceOf(PersonFormatException.class)
+                    .hasMessageStartingWith("JSON record 1");
+        }
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
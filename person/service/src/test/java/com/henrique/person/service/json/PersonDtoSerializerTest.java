@@ -0,0 +1,39 @@
+package com.henrique.person.service.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.henrique.person.model.dto.PersonDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonDtoSerializerTest {
+
+    private final ObjectMapper defaultMapper = new ObjectMapper();
+    private final ObjectMapper personMapper = new ObjectMapper().registerModule(new PersonJsonModule());
+
+    @Test
+    void serialize_shouldMatchTheDefaultMapping() throws Exception {
+        List<PersonDto> people = List.of(
+                new PersonDto(1L, "Alice", 25, 3L),
+                new PersonDto(null, null, 0, null),
+                new PersonDto(Long.MAX_VALUE, "Zoë \"Q\" \\ \n\u0001", -1, 0L));
+
+        for (PersonDto person : people) {
+            assertThat(personMapper.writeValueAsString(person)).isEqualTo(defaultMapper.writeValueAsString(person));
+            assertThat(personMapper.writeValueAsBytes(person)).isEqualTo(defaultMapper.writeValueAsBytes(person));
+        }
+        assertThat(personMapper.writeValueAsString(people)).isEqualTo(defaultMapper.writeValueAsString(people));
+    }
+
+    @Test
+    void serialized_shouldReadBack() throws Exception {
+        PersonDto read = personMapper.readValue(personMapper.writeValueAsString(new PersonDto(7L, "Gina", 29, 2L)), PersonDto.class);
+
+        assertThat(read.getId()).isEqualTo(7L);
+        assertThat(read.getName()).isEqualTo("Gina");
+        assertThat(read.getAge()).isEqualTo(29);
+        assertThat(read.getVersion()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,118 @@
+package com.henrique.person.service.limit;
+
+import com.henrique.person.service.config.ServiceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimitersTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void tokenBucket_shouldAllowTheBurstThenRefillAtTheRate() {
+        // 10 per second, so one permit every 100 ms; nanoTime may well be negative
+        long start = -5 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 5, start);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(1, start)).isZero();
+        }
+        assertThat(bucket.tryAcquire(1, start)).isEqualTo(100 * MS);
+        assertThat(bucket.tryAcquire(1, start + 100 * MS)).isZero();
+        assertThat(bucket.tryAcquire(2, start + 150 * MS)).isEqualTo(150 * MS);
+        // idle time refills up to the burst, not beyond
+        assertThat(bucket.tryAcquire(5, start + 10 * SECOND)).isZero();
+        assertThat(bucket.tryAcquire(1, start + 10 * SECOND)).isPositive();
+        assertThat(bucket.tryAcquire(6, start + 60 * SECOND)).isPositive();
+    }
+
+    @Test
+    void tokenBucket_shouldHandOutExactlyTheBurstUnderContention() throws Exception {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(0.001, 1000, now);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            threads.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(1, now) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        threads.shutdown();
+
+        assertThat(granted).hasValue(1000);
+    }
+
+    @Test
+    void rateLimiter_shouldKeepOneBucketPerLimitAndClient() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimiter limiter = new RateLimiter(new ServiceProperties(), registry);
+        ServiceProperties.Rate rate = new ServiceProperties.Rate(0.001, 1);
+
+        assertThat(limiter.tryAcquire("a", rate, "alice", 1)).isZero();
+        assertThat(limiter.tryAcquire("a", rate, "alice", 1)).isPositive();
+        assertThat(limiter.tryAcquire("a", rate, "bob", 1)).isZero();
+        assertThat(limiter.tryAcquire("b", rate, "alice", 1)).isZero();
+        assertThat(limiter.tryAcquire("a", new ServiceProperties.Rate(0, 0), "alice", 1)).isZero();
+        assertThat(registry.get("person.limits.rejected").tags("limit", "a", "reason", "rate").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrencyLimiter_shouldRejectOverTheLimitAndAdaptToLatency() {
+        ServiceProperties properties = new ServiceProperties();
+        ServiceProperties.Shedding shedding = properties.getLimits().getShedding();
+        shedding.setInitialLimit(4);
+        shedding.setMinLimit(2);
+        shedding.setMaxLimit(5);
+        shedding.setBackoff(0.5);
+        shedding.setTargetLatency(Duration.ofMillis(50));
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        // fast completions while at least half of the limit is in use raise it by one per limit of them
+        for (int i = 0; i < 4; i++) {
+            limiter.release(MS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(MS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getInFlight()).isZero();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        limiter.release(ConcurrencyLimiter.NO_SAMPLE);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        limiter.release(SECOND);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        // one decrease per target latency, and never below the minimum
+        limiter.release(SECOND);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+}
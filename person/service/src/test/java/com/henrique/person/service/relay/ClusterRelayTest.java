@@ -0,0 +1,57 @@
+package com.henrique.person.service.relay;
+
+import com.henrique.person.service.config.ServiceProperties;
+import com.henrique.person.service.handler.WebSocketExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ClusterRelayTest {
+
+    private TaskExecutor dispatchers;
+    private WebSocketExecutors executors;
+
+    @BeforeEach
+    void setUp() {
+        dispatchers = Mockito.mock(TaskExecutor.class);
+        executors = Mockito.mock(WebSocketExecutors.class);
+        when(executors.getDispatchers()).thenReturn(dispatchers);
+    }
+
+    @Test
+    void withoutARelay_shouldNotScheduleAnything() {
+        ClusterRelay relay = new ClusterRelay(null, new ServiceProperties(), executors, new SimpleMeterRegistry());
+
+        relay.onReceive(message -> {});
+        relay.publish(RelayMessage.toTopic("topic", "{}"));
+        relay.destroy();
+
+        verify(dispatchers, never()).execute(any());
+    }
+
+    @Test
+    void publishedMessages_shouldReachTheOtherNodes() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(dispatchers).execute(any());
+        MessageRelay bus = new LoopbackMessageRelay();
+        ClusterRelay sender = new ClusterRelay(bus, new ServiceProperties(), executors, new SimpleMeterRegistry());
+        ClusterRelay receiver = new ClusterRelay(bus, new ServiceProperties(), executors, new SimpleMeterRegistry());
+        List<RelayMessage> received = new ArrayList<>();
+        receiver.onReceive(received::add);
+
+        sender.publish(RelayMessage.toTopic("topic", "{}"));
+
+        assertThat(received).containsExactly(RelayMessage.toTopic("topic", "{}"));
+    }
+}
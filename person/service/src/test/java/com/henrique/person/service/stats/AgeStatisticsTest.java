@@ -0,0 +1,131 @@
+package com.henrique.person.service.stats;
+
+import com.henrique.person.model.dto.AgeBucketDto;
+import com.henrique.person.model.dto.AgeStatsDto;
+import com.henrique.person.model.dto.PersonChangeDto;
+import com.henrique.person.model.dto.PersonDto;
+import com.henrique.person.model.entity.PersonChange;
+import com.henrique.person.repository.PersonChangeRepository;
+import com.henrique.person.service.PersonService;
+import com.henrique.person.service.changes.PersonChangeRelay;
+import com.henrique.person.service.config.ServiceProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AgeStatisticsTest {
+
+    private PersonService service;
+    private PersonChangeRelay relay;
+    private AgeStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        service = Mockito.mock(PersonService.class);
+        relay = Mockito.mock(PersonChangeRelay.class);
+        PersonChangeRepository changeRepository = Mockito.mock(PersonChangeRepository.class);
+        when(changeRepository.findLastId()).thenReturn(42L);
+        doAnswer(invocation -> {
+            Consumer<PersonDto> consumer = invocation.getArgument(0);
+            consumer.accept(new PersonDto(1L, "A", 10));
+            consumer.accept(new PersonDto(2L, "B", 20));
+            consumer.accept(new PersonDto(3L, "C", 30));
+            consumer.accept(new PersonDto(4L, "D", 40));
+            return null;
+        }).when(service).streamAll(any());
+        statistics = new AgeStatistics(service, changeRepository, relay, Mockito.mock(PlatformTransactionManager.class),
+                new ServiceProperties());
+    }
+
+    private static PersonChangeDto change(long offset, PersonChange.Type type, long id, int age) {
+        PersonDto person = type == PersonChange.Type.DELETED ? null : new PersonDto(id, "P" + id, age);
+        return new PersonChangeDto(offset, type, id, person, 0);
+    }
+
+    @Test
+    void load_shouldScanTheTableAndFollowTheOutboxFromTheOffsetBeforeTheScan() {
+        assertThat(statistics.isReady()).isFalse();
+
+        statistics.load();
+
+        assertThat(statistics.isReady()).isTrue();
+        verify(relay).subscribe(statistics, 42L);
+        AgeStatsDto summary = statistics.summary();
+        assertThat(summary.getCount()).isEqualTo(4);
+        assertThat(summary.getMean()).isEqualTo(25.0);
+        assertThat(summary.getMin()).isEqualTo(10);
+        assertThat(summary.getMax()).isEqualTo(40);
+        assertThat(summary.getMedian()).isEqualTo(20);
+        assertThat(summary.getP99()).isEqualTo(40);
+    }
+
+    @Test
+    void changes_shouldMoveAgesBetweenBucketsAndBeIdempotent() {
+        statistics.load();
+
+        statistics.deliver(List.of(
+                change(43, PersonChange.Type.CREATED, 5L, 35),
+                change(44, PersonChange.Type.UPDATED, 1L, 31),
+                change(45, PersonChange.Type.DELETED, 4L, 0),
+                // replayed changes the scan had already seen
+                change(44, PersonChange.Type.UPDATED, 1L, 31),
+                change(46, PersonChange.Type.DELETED, 99L, 0)));
+
+        assertThat(statistics.count()).isEqualTo(4);
+        assertThat(statistics.count(30, 39)).isEqualTo(3);
+        assertThat(statistics.count(0, 19)).isZero();
+        assertThat(statistics.summary().getMean()).isEqualTo((20 + 30 + 31 + 35) / 4.0);
+        assertThat(statistics.histogram(10))
+                .extracting(AgeBucketDto::getMinAge, AgeBucketDto::getMaxAge, AgeBucketDto::getCount)
+                .containsExactly(
+                        tuple(0, 9, 0L),
+                        tuple(10, 19, 0L),
+                        tuple(20, 29, 1L),
+                        tuple(30, 39, 3L));
+    }
+
+    @Test
+    void emptyTable_shouldHaveNoPercentilesOrBuckets() {
+        doAnswer(invocation -> null).when(service).streamAll(any());
+        statistics.load();
+
+        assertThat(statistics.summary().getCount()).isZero();
+        assertThat(statistics.summary().getMean()).isNull();
+        assertThat(statistics.percentile(50)).isNull();
+        assertThat(statistics.histogram(10)).isEmpty();
+    }
+
+    @Test
+    void ageIndex_shouldAgreeWithAHashMapUnderChurn() {
+        AgeIndex index = new AgeIndex(16);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            long id = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(id);
+                assertThat(index.remove(id)).isEqualTo(removed == null ? AgeIndex.ABSENT : removed);
+            } else {
+                int age = random.nextInt(120);
+                Integer previous = expected.put(id, age);
+                assertThat(index.put(id, age)).isEqualTo(previous == null ? AgeIndex.ABSENT : previous);
+            }
+        }
+        assertThat(index.size()).isEqualTo(expected.size());
+        expected.forEach((id, age) -> assertThat(index.put(id, age)).isEqualTo(age));
+    }
+}
@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+set -eo pipefail
+source "$(dirname "$0")/functions.sh"
+
+# Compares throughput and tail latency of the person API with platform threads and with virtual
+# threads. Each mode boots the app jar, warms up, then runs the same load with `hey` and prints its
+# summary (requests/sec and latency distribution, including p99).
+
+# --- Validate input ----------------------------------------------------------
+if [[ $# -lt 1 ]]; then
+  error "Usage: $0 <app.jar> [concurrency] [duration]   (TOKEN must hold a bearer token for /v1/**)"
+fi
+
+# --- Check dependencies ------------------------------------------------------
+for cmd in java hey curl; do
+  if ! command -v $cmd &>/dev/null; then error "Missing dependency: $cmd"; fi
+done
+if [[ -z "$TOKEN" ]]; then error "TOKEN is not set"; fi
+
+# --- Variables ---------------------------------------------------------------
+JAR="$1"
+CONCURRENCY="${2:-1000}"
+DURATION="${3:-60s}"
+PORT="${PORT:-8080}"
+BASE_URL="http://localhost:$PORT"
+
+# --- Helpers -----------------------------------------------------------------
+wait_until_up() {
+  for _ in $(seq 1 120); do
+    if curl -fs "$BASE_URL/actuator/health" >/dev/null; then return 0; fi
+    sleep 1
+  done
+  error "Application did not start on $BASE_URL"
+}
+
+run_mode() {
+  local mode="$1" virtual="$2"
+  log "Starting application with $mode threads"
+  PERSON_VIRTUAL_THREADS="$virtual" java -jar "$JAR" --server.port="$PORT" >"/tmp/person-$mode.log" 2>&1 &
+  local pid=$!
+  wait_until_up
+
+  local id
+  id=$(curl -fs -X POST "$BASE_URL/v1/person" -H "Authorization: Bearer $TOKEN" \
+         -H "Content-Type: application/json" -d '{"name":"Load Test","age":30}' | sed -E 's/.*"id":([0-9]+).*/\1/')
+
+  log "Warming up ($mode)"
+  hey -z 10s -c 50 -H "Authorization: Bearer $TOKEN" "$BASE_URL/v1/person/$id" >/dev/null
+
+  info "Results for $mode threads, $CONCURRENCY concurrent clients, $DURATION"
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$BASE_URL/v1/person?limit=100" \
+    | grep -E "Requests/sec|Average|99%|Status code|\[[0-9]+\]"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+# --- Run both modes ----------------------------------------------------------
+run_mode platform false
+run_mode virtual true
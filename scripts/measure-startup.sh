@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+set -eo pipefail
+source "$(dirname "$0")/functions.sh"
+
+# Measures time to first request of the person app in each startup mode: the default boot, the fast
+# profile, the fast profile with AOT, and that plus the CDS archive. Each mode is started RUNS times;
+# the time from launching the JVM until the first successful response is printed in milliseconds.
+# Build the extracted layout and archive first with: ./gradlew :app:cdsArchive
+
+# --- Validate input ----------------------------------------------------------
+if [[ $# -lt 1 ]]; then
+  error "Usage: $0 <app dir holding app.jar and app.jsa, e.g. person/app/build/app> [runs]"
+fi
+
+# --- Check dependencies ------------------------------------------------------
+for cmd in java curl date; do
+  if ! command -v $cmd &>/dev/null; then error "Missing dependency: $cmd"; fi
+done
+
+# --- Variables ---------------------------------------------------------------
+APP_DIR="$1"
+RUNS="${2:-5}"
+PORT="${PORT:-8080}"
+# With TOKEN set the first request is a real API call, otherwise the health endpoint
+if [[ -n "$TOKEN" ]]; then
+  URL="http://localhost:$PORT/v1/person/count"
+else
+  URL="http://localhost:$PORT/actuator/health"
+fi
+
+# --- Helpers -----------------------------------------------------------------
+now_ms() { date +%s%3N; }
+
+first_request_ms() {
+  local started="$1"
+  for _ in $(seq 1 1200); do
+    if curl -fs -o /dev/null ${TOKEN:+-H "Authorization: Bearer $TOKEN"} "$URL"; then
+      echo $(( $(now_ms) - started ))
+      return 0
+    fi
+    sleep 0.05
+  done
+  error "Application did not answer on $URL"
+}
+
+run_mode() {
+  local mode="$1"; shift
+  local total=0 elapsed started pid
+  for run in $(seq 1 "$RUNS"); do
+    started=$(now_ms)
+    (cd "$APP_DIR" && exec java "$@" -jar app.jar --server.port="$PORT") >"/tmp/person-startup-$mode.log" 2>&1 &
+    pid=$!
+    elapsed=$(first_request_ms "$started")
+    total=$(( total + elapsed ))
+    log "$mode run $run: ${elapsed}ms"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+  done
+  info "$mode: average time to first request $(( total / RUNS ))ms over $RUNS runs"
+}
+
+# --- Run every mode ----------------------------------------------------------
+run_mode default
+run_mode fast -Dspring.profiles.active=fast
+run_mode fast-aot -Dspring.profiles.active=fast -Dspring.aot.enabled=true
+if [[ -f "$APP_DIR/app.jsa" ]]; then
+  run_mode fast-aot-cds -XX:SharedArchiveFile=app.jsa -Dspring.profiles.active=fast -Dspring.aot.enabled=true
+else
+  warn "No $APP_DIR/app.jsa, skipping the CDS mode"
+fi